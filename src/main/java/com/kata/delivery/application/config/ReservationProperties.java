@@ -0,0 +1,137 @@
+package com.kata.delivery.application.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the reservation use cases
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.reservations")
+public class ReservationProperties {
+
+    private Batch batch = new Batch();
+
+    private Hold hold = new Hold();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private GroupCommit groupCommit = new GroupCommit();
+
+    private ConflictRetry conflictRetry = new ConflictRetry();
+
+    private TimeSlotResolution timeSlotResolution = new TimeSlotResolution();
+
+    private View view = new View();
+
+    private Export export = new Export();
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Largest number of reservations accepted in one batch request
+         */
+        private int maxSize = 1000;
+    }
+
+    @Data
+    public static class Hold {
+
+        /**
+         * How long a hold keeps its capacity before it is released
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Idempotency {
+
+        /**
+         * How long a replayed request returns the original reservation
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Most keys kept in memory, older ones are still answered from the database
+         */
+        private long maxKeys = 100_000;
+    }
+
+    @Data
+    public static class GroupCommit {
+
+        /**
+         * Coalesce concurrent single reservations into batched inserts
+         */
+        private boolean enabled = false;
+
+        /**
+         * Most reservations committed together
+         */
+        private int maxBatchSize = 256;
+
+        /**
+         * Batches committing at the same time, requests arriving meanwhile wait for the next batch
+         */
+        private int maxInFlight = 2;
+    }
+
+    @Data
+    public static class ConflictRetry {
+
+        /**
+         * Retries after an optimistic locking conflict before giving up with 409
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Delay before the first retry, doubled on each attempt
+         */
+        private Duration minBackoff = Duration.ofMillis(5);
+
+        /**
+         * Cap on the delay between two retries
+         */
+        private Duration maxBackoff = Duration.ofMillis(200);
+
+        /**
+         * Random share of each delay, spreads out callers that conflicted together
+         */
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class TimeSlotResolution {
+
+        /**
+         * Reservations whose time slots are fetched with one query
+         */
+        private int batchSize = 256;
+
+        /**
+         * Longest a partial batch waits for more reservations on a slow stream
+         */
+        private Duration maxWait = Duration.ofMillis(20);
+    }
+
+    @Data
+    public static class View {
+
+        /**
+         * Serve reservation lookups from the read model maintained from domain events instead of the write tables
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Export {
+
+        /**
+         * Rows fetched from the database cursor at a time while an export is consumed
+         */
+        private int fetchSize = 500;
+    }
+}
@@ -0,0 +1,83 @@
+package com.kata.delivery.application.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the time slot use cases
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.time-slots")
+public class TimeSlotProperties {
+
+    private AvailabilityCache availabilityCache = new AvailabilityCache();
+
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    private HttpCache httpCache = new HttpCache();
+
+    private Calendar calendar = new Calendar();
+
+    @Data
+    public static class AvailabilityCache {
+
+        /**
+         * Cache available slots per delivery mode and date
+         */
+        private boolean enabled = true;
+
+        /**
+         * Most (delivery mode, date) entries kept, least used ones are evicted first
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * Backstop for a missed invalidation, entries are normally dropped by capacity events
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class AvailabilityIndex {
+
+        /**
+         * Answer slot listings from today on from an in-memory index instead of the database
+         */
+        private boolean enabled = true;
+
+        /**
+         * Changed slots re-read with one query
+         */
+        private int refreshBatchSize = 256;
+
+        /**
+         * Longest a changed slot waits for others before it is re-read
+         */
+        private Duration refreshMaxWait = Duration.ofMillis(10);
+    }
+
+    @Data
+    public static class HttpCache {
+
+        /**
+         * How long clients may reuse a versioned listing without asking again
+         */
+        private Duration maxAge = Duration.ofSeconds(1);
+
+        /**
+         * How long past max-age clients may show a listing while they revalidate it in the background
+         */
+        private Duration staleWhileRevalidate = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Calendar {
+
+        /**
+         * Longest availability calendar served in one request, in days
+         */
+        private int maxDays = 62;
+    }
+}
@@ -0,0 +1,32 @@
+package com.kata.delivery.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Response DTO summarizing the availability of one delivery mode on one day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityDayResponse {
+    private LocalDate date;
+    private Integer totalCapacity;
+    private Integer remainingCapacity;
+    private Integer availableSlots;
+
+    /**
+     * Start of the earliest slot with capacity left, null when the day is fully booked
+     */
+    private LocalTime earliestAvailableStart;
+
+    public static AvailabilityDayResponse empty(LocalDate date) {
+        return new AvailabilityDayResponse(date, 0, 0, 0, null);
+    }
+}
@@ -3,6 +3,7 @@ package com.kata.delivery.application.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,9 +19,11 @@ import lombok.NoArgsConstructor;
 public class CreateReservationCommand {
 
     @NotBlank(message = "Customer name is required")
+    @Size(max = 255, message = "Customer name must be at most 255 characters")
     private String customerName;
 
     @NotBlank(message = "Customer email is required")
+    @Size(max = 255, message = "Customer email must be at most 255 characters")
     @Email(message = "Invalid email format")
     private String customerEmail;
 
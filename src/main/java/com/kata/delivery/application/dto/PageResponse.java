@@ -0,0 +1,33 @@
+package com.kata.delivery.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Response DTO for one page of a keyset-paginated listing
+ * nextCursor is opaque to clients and absent on the last page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Build a page from up to limit + 1 rows fetched in id order, the extra row only tells that more follow
+     */
+    public static <T> PageResponse<T> of(List<T> fetched, int limit, Function<T, Long> idOf) {
+        if (fetched.size() <= limit) {
+            return new PageResponse<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new PageResponse<>(items, PageCursor.encode(idOf.apply(items.get(limit - 1))));
+    }
+}
@@ -0,0 +1,28 @@
+package com.kata.delivery.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for one item of a batch reservation request
+ * Either carries the confirmed reservation or the reason it was rejected
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationBatchResult {
+    private Integer index;
+    private Boolean confirmed;
+    private ReservationResponse reservation;
+    private String rejectionReason;
+    
+    /**
+     * Exception behind the rejection, for callers that turn a result back into a single outcome
+     */
+    @JsonIgnore
+    private RuntimeException rejection;
+}
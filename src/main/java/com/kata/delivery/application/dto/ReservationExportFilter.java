@@ -0,0 +1,34 @@
+package com.kata.delivery.application.dto;
+
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Query DTO selecting the reservations of an export, every criterion is optional
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationExportFilter {
+
+    /**
+     * First delivery date included
+     */
+    private LocalDate from;
+
+    /**
+     * Last delivery date included
+     */
+    private LocalDate to;
+
+    private ReservationStatus status;
+
+    private DeliveryMode deliveryMode;
+}
@@ -24,4 +24,5 @@ public class ReservationResponse {
     private ReservationStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime cancelledAt;
+    private LocalDateTime holdExpiresAt;
 }
@@ -0,0 +1,118 @@
+package com.kata.delivery.application.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Near cache of the available time slots per delivery mode and date, and of the availability calendars
+ * An entry is dropped as soon as the capacity of one of its slots changes: locally once the change
+ * is committed, and through Kafka for changes made by other instances. Hits, misses and evictions
+ * are exposed as the cache.* metrics of the availableTimeSlots and availabilityCalendars caches.
+ */
+@Component
+@Slf4j
+public class AvailableTimeSlotCache {
+
+    static final String CACHE_NAME = "availableTimeSlots";
+    static final String CALENDAR_CACHE_NAME = "availabilityCalendars";
+
+    private final boolean enabled;
+    private final Cache<AvailabilityKey, Mono<List<TimeSlotResponse>>> entries;
+    private final Cache<CalendarKey, Mono<List<AvailabilityDayResponse>>> calendars;
+
+    public AvailableTimeSlotCache(TimeSlotProperties properties, MeterRegistry meterRegistry) {
+        TimeSlotProperties.AvailabilityCache config = properties.getAvailabilityCache();
+        this.enabled = config.isEnabled();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+        this.calendars = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, calendars, CALENDAR_CACHE_NAME);
+    }
+
+    /**
+     * Available slots for the key, loaded once and shared by concurrent callers on a miss
+     */
+    public Flux<TimeSlotResponse> get(DeliveryMode deliveryMode, LocalDate date,
+                                      Supplier<Flux<TimeSlotResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        AvailabilityKey key = new AvailabilityKey(deliveryMode, date);
+        return Mono.defer(() -> entries.get(key, k -> loader.get()
+                        .collectList()
+                        .doOnError(e -> entries.invalidate(k))
+                        .cache()))
+                .flatMapIterable(slots -> slots);
+    }
+
+    /**
+     * Availability calendar of a delivery mode, loaded once and shared by concurrent callers on a miss
+     */
+    public Mono<List<AvailabilityDayResponse>> getCalendar(DeliveryMode deliveryMode, LocalDate from, int days,
+                                                           Supplier<Mono<List<AvailabilityDayResponse>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CalendarKey key = new CalendarKey(deliveryMode, from, from.plusDays(days - 1L));
+        return Mono.defer(() -> calendars.get(key, k -> loader.get()
+                .doOnError(e -> calendars.invalidate(k))
+                .cache()));
+    }
+
+    /**
+     * Drop the entries of the changed slot once the change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapacityChanged(TimeSlotCapacityChangedEvent event) {
+        invalidate(event);
+    }
+
+    public void invalidate(TimeSlotCapacityChangedEvent event) {
+        if (event.getDeliveryMode() != null && event.getDate() != null) {
+            entries.invalidate(new AvailabilityKey(event.getDeliveryMode(), event.getDate()));
+            calendars.asMap().keySet().removeIf(key -> key.covers(event.getDeliveryMode(), event.getDate()));
+            return;
+        }
+        // Events written before the date was recorded, drop everything they could touch
+        log.debug("Capacity change of time slot {} without a date, invalidating its delivery mode",
+                event.getTimeSlotId());
+        entries.asMap().keySet().removeIf(key ->
+                event.getDeliveryMode() == null || key.deliveryMode() == event.getDeliveryMode());
+        calendars.asMap().keySet().removeIf(key ->
+                event.getDeliveryMode() == null || key.deliveryMode() == event.getDeliveryMode());
+    }
+
+    private record AvailabilityKey(DeliveryMode deliveryMode, LocalDate date) {
+    }
+
+    private record CalendarKey(DeliveryMode deliveryMode, LocalDate from, LocalDate to) {
+
+        boolean covers(DeliveryMode mode, LocalDate date) {
+            return deliveryMode == mode && !date.isBefore(from) && !date.isAfter(to);
+        }
+    }
+}
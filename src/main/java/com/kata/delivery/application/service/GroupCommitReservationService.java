@@ -0,0 +1,188 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.PageResponse;
+import com.kata.delivery.application.dto.ReservationBatchResult;
+import com.kata.delivery.application.dto.ReservationExportFilter;
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.port.inbound.ReservationUseCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reservation use cases with group commit of concurrent single reservations
+ * Requests are queued and committed together through the batch path: one transaction, one capacity
+ * claim per slot and one multi-row insert per batch. The batching is adaptive: a request is dispatched
+ * straight away while fewer than max-in-flight batches are committing, so a lone request waits for
+ * nothing, and under load everything that queued up behind a commit leaves in the next batch.
+ * When a batch fails as a whole its requests are committed again one by one, each with its own outcome.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "delivery.reservations.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class GroupCommitReservationService implements ReservationUseCase {
+
+    private final ReservationApplicationService delegate;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+
+    private final Queue<PendingCommand> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    public GroupCommitReservationService(ReservationApplicationService delegate, ReservationProperties properties) {
+        this.delegate = delegate;
+        // A group is committed as one batch request, so it is bound by the batch limit too
+        this.maxBatchSize = Math.min(properties.getGroupCommit().getMaxBatchSize(), properties.getBatch().getMaxSize());
+        this.maxInFlight = properties.getGroupCommit().getMaxInFlight();
+    }
+
+    @Override
+    public Mono<ReservationResponse> createReservation(CreateReservationCommand command) {
+        // A caller's own transaction must cover its reservation, so it cannot share another commit
+        return inCallerTransaction()
+                .flatMap(joined -> joined
+                        ? delegate.createReservation(command)
+                        : Mono.<ReservationResponse>create(sink -> {
+                            queue.offer(new PendingCommand(command, sink));
+                            drain();
+                        }));
+    }
+
+    @Override
+    public Flux<ReservationBatchResult> createReservations(Flux<CreateReservationCommand> commands) {
+        return delegate.createReservations(commands);
+    }
+
+    @Override
+    public Mono<ReservationResponse> placeHold(CreateReservationCommand command) {
+        return delegate.placeHold(command);
+    }
+
+    @Override
+    public Mono<ReservationResponse> confirmReservation(Long id) {
+        return delegate.confirmReservation(id);
+    }
+
+    @Override
+    public Mono<Void> expireHold(Long id) {
+        return delegate.expireHold(id);
+    }
+
+    @Override
+    public Mono<ReservationResponse> getReservationById(Long id) {
+        return delegate.getReservationById(id);
+    }
+
+    @Override
+    public Flux<ReservationResponse> getAllReservations() {
+        return delegate.getAllReservations();
+    }
+
+    @Override
+    public Mono<PageResponse<ReservationResponse>> getReservationsPage(String after, int limit) {
+        return delegate.getReservationsPage(after, limit);
+    }
+
+    @Override
+    public Flux<ReservationResponse> getReservationsByCustomer(String email) {
+        return delegate.getReservationsByCustomer(email);
+    }
+
+    @Override
+    public Flux<ReservationResponse> getReservationsByStatus(ReservationStatus status) {
+        return delegate.getReservationsByStatus(status);
+    }
+
+    @Override
+    public Flux<ReservationResponse> exportReservations(ReservationExportFilter filter) {
+        return delegate.exportReservations(filter);
+    }
+
+    @Override
+    public Mono<ReservationResponse> cancelReservation(Long id, String reason) {
+        return delegate.cancelReservation(id, reason);
+    }
+
+    /**
+     * Dispatch queued requests while there is room for another batch, one thread at a time
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (inFlight.get() < maxInFlight && !queue.isEmpty()) {
+                List<PendingCommand> batch = new ArrayList<>();
+                PendingCommand next;
+                while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                    batch.add(next);
+                }
+                inFlight.incrementAndGet();
+                commit(batch);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void commit(List<PendingCommand> batch) {
+        log.debug("Group committing {} reservations", batch.size());
+
+        delegate.createReservations(Flux.fromIterable(batch).map(PendingCommand::command))
+                .collectList()
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    drain();
+                })
+                .subscribe(
+                        results -> results.forEach(result -> complete(batch.get(result.getIndex()).sink(), result)),
+                        e -> retryAlone(batch, e));
+    }
+
+    /**
+     * The shared transaction failed as a whole, commit every request on its own so only the faulty one fails
+     */
+    private void retryAlone(List<PendingCommand> batch, Throwable e) {
+        if (batch.size() == 1) {
+            batch.get(0).sink().error(e);
+            return;
+        }
+        log.warn("Group commit of {} reservations failed, committing them one by one", batch.size(), e);
+        batch.forEach(pending -> delegate.createReservation(pending.command())
+                .subscribe(pending.sink()::success, pending.sink()::error, pending.sink()::success));
+    }
+
+    private void complete(MonoSink<ReservationResponse> sink, ReservationBatchResult result) {
+        if (Boolean.TRUE.equals(result.getConfirmed())) {
+            sink.success(result.getReservation());
+        } else {
+            sink.error(result.getRejection());
+        }
+    }
+
+    private static Mono<Boolean> inCallerTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(TransactionSynchronizationManager::isActualTransactionActive)
+                .onErrorResume(NoTransactionException.class, e -> Mono.just(false));
+    }
+
+    private record PendingCommand(CreateReservationCommand command, MonoSink<ReservationResponse> sink) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.kata.delivery.application.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.port.inbound.IdempotentReservationUseCase;
+import com.kata.delivery.domain.port.inbound.ReservationUseCase;
+import com.kata.delivery.domain.port.outbound.IdempotencyKeyRepositoryPort;
+import com.kata.delivery.exception.IdempotencyKeyReusedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Application service deduplicating retried reservation requests by their Idempotency-Key
+ * Recent keys map to the cached outcome in memory, so concurrent duplicates share one execution
+ * and a retry costs a cache hit. The key is also stored in the same transaction as the reservation,
+ * which answers retries after a restart or eviction and settles races between instances.
+ * Both remember a fingerprint of the request, a key sent again with another request is rejected.
+ */
+@Service
+@Slf4j
+public class IdempotentReservationService implements IdempotentReservationUseCase {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ReservationUseCase reservationUseCase;
+    private final IdempotencyKeyRepositoryPort idempotencyKeys;
+    private final TransactionalOperator transactionalOperator;
+    private final Cache<String, Outcome> outcomes;
+
+    public IdempotentReservationService(ReservationUseCase reservationUseCase,
+                                        IdempotencyKeyRepositoryPort idempotencyKeys,
+                                        TransactionalOperator transactionalOperator,
+                                        ReservationProperties properties) {
+        this.reservationUseCase = reservationUseCase;
+        this.idempotencyKeys = idempotencyKeys;
+        this.transactionalOperator = transactionalOperator;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(properties.getIdempotency().getMaxKeys())
+                .expireAfterWrite(properties.getIdempotency().getTtl())
+                .build();
+    }
+
+    @Override
+    public Mono<ReservationResponse> createReservation(String idempotencyKey, CreateReservationCommand command) {
+        if (idempotencyKey == null) {
+            return reservationUseCase.createReservation(command);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String fingerprint = fingerprint(command);
+        return Mono.defer(() -> {
+            Outcome outcome = outcomes.get(idempotencyKey, key -> new Outcome(fingerprint,
+                    execute(key, fingerprint, command)
+                            // Nothing was booked, let the next retry run again
+                            .doOnError(e -> outcomes.invalidate(key))
+                            .cache()));
+            return outcome.fingerprint().equals(fingerprint)
+                    ? outcome.reservation()
+                    : Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+        });
+    }
+
+    /**
+     * Digest of the request fields, each prefixed with its length so no two requests share one
+     */
+    static String fingerprint(CreateReservationCommand command) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object field : Arrays.asList(
+                command.getCustomerName(), command.getCustomerEmail(), command.getTimeSlotId())) {
+            String value = String.valueOf(field);
+            canonical.append(value.length()).append(':').append(value);
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Mono<ReservationResponse> execute(String idempotencyKey, String fingerprint,
+                                              CreateReservationCommand command) {
+        return replay(idempotencyKey, fingerprint)
+                .switchIfEmpty(Mono.defer(() -> transactionalOperator.transactional(
+                                reservationUseCase.createReservation(command)
+                                        .flatMap(created -> idempotencyKeys
+                                                .save(idempotencyKey, fingerprint, created.getId())
+                                                .thenReturn(created)))
+                        // Another instance recorded the key first, our reservation was rolled back
+                        .onErrorResume(DuplicateKeyException.class, e -> replay(idempotencyKey, fingerprint))));
+    }
+
+    private Mono<ReservationResponse> replay(String idempotencyKey, String fingerprint) {
+        return idempotencyKeys.find(idempotencyKey)
+                .flatMap(recorded -> recorded.getRequestFingerprint().equals(fingerprint)
+                        ? Mono.just(recorded.getReservationId())
+                        : Mono.error(new IdempotencyKeyReusedException(idempotencyKey)))
+                .doOnNext(reservationId -> log.info("Replaying reservation {} for idempotency key {}",
+                        reservationId, idempotencyKey))
+                .flatMap(reservationUseCase::getReservationById);
+    }
+
+    private record Outcome(String fingerprint, Mono<ReservationResponse> reservation) {
+    }
+}
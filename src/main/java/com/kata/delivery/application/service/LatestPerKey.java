@@ -0,0 +1,93 @@
+package com.kata.delivery.application.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Conflates a hot stream per subscriber: a subscriber that falls behind gets the latest value of each key
+ * Pending values are held in one map entry per key, so a slow subscriber costs at most one value per key
+ * however fast the source emits. A key keeps its place in line when its value is replaced.
+ */
+final class LatestPerKey {
+
+    private LatestPerKey() {
+    }
+
+    /**
+     * Snapshot first then updates, an update seen while the snapshot is taken wins over it
+     */
+    static <T, K> Flux<T> of(Flux<T> updates, Supplier<? extends Collection<T>> snapshot, Function<T, K> keyOf) {
+        return Flux.create(sink -> {
+            Pending<T, K> pending = new Pending<>(sink, keyOf);
+            Disposable live = updates.subscribe(pending::put, sink::error, sink::complete);
+            sink.onDispose(live);
+            snapshot.get().forEach(pending::putIfAbsent);
+            sink.onRequest(n -> pending.drain());
+        });
+    }
+
+    private static final class Pending<T, K> {
+
+        private final FluxSink<T> sink;
+        private final Function<T, K> keyOf;
+        private final Map<K, T> latest = new LinkedHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Pending(FluxSink<T> sink, Function<T, K> keyOf) {
+            this.sink = sink;
+            this.keyOf = keyOf;
+        }
+
+        private void put(T value) {
+            synchronized (latest) {
+                latest.put(keyOf.apply(value), value);
+            }
+            drain();
+        }
+
+        private void putIfAbsent(T value) {
+            synchronized (latest) {
+                latest.putIfAbsent(keyOf.apply(value), value);
+            }
+            drain();
+        }
+
+        /**
+         * Emit pending values as far as the subscriber has asked, one thread at a time
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                T next;
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled() && (next = poll()) != null) {
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private T poll() {
+            synchronized (latest) {
+                Iterator<T> values = latest.values().iterator();
+                if (!values.hasNext()) {
+                    return null;
+                }
+                T next = values.next();
+                values.remove();
+                return next;
+            }
+        }
+    }
+}
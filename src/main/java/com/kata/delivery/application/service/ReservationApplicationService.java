@@ -1,23 +1,50 @@
 package com.kata.delivery.application.service;
 
+import com.kata.delivery.application.config.ReservationProperties;
 import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.PageCursor;
+import com.kata.delivery.application.dto.PageResponse;
+import com.kata.delivery.application.dto.ReservationBatchResult;
+import com.kata.delivery.application.dto.ReservationExportFilter;
 import com.kata.delivery.application.dto.ReservationResponse;
 import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.ReservationStatus;
 import com.kata.delivery.domain.event.DomainEvent;
 import com.kata.delivery.domain.model.CustomerInfo;
 import com.kata.delivery.domain.model.ReservationAggregate;
 import com.kata.delivery.domain.model.TimeSlotAggregate;
 import com.kata.delivery.domain.port.inbound.ReservationUseCase;
 import com.kata.delivery.domain.port.outbound.EventPublisherPort;
+import com.kata.delivery.domain.port.outbound.HoldExpiryPort;
 import com.kata.delivery.domain.port.outbound.ReservationRepositoryPort;
+import com.kata.delivery.domain.port.outbound.ReservationViewRepositoryPort;
 import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
 import com.kata.delivery.exception.ResourceNotFoundException;
+import com.kata.delivery.exception.TimeSlotNotAvailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Application service implementing reservation use cases
@@ -31,6 +58,12 @@ public class ReservationApplicationService implements ReservationUseCase {
     private final ReservationRepositoryPort reservationRepository;
     private final TimeSlotRepositoryPort timeSlotRepository;
     private final EventPublisherPort eventPublisher;
+    private final HoldExpiryPort holdExpiry;
+    private final ReservationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TimeSlotResolver timeSlotResolver;
+    private final ReservationViewRepositoryPort reservationView;
+    private final Validator validator;
 
     @Override
     @Transactional
@@ -42,26 +75,126 @@ public class ReservationApplicationService implements ReservationUseCase {
                 command.getCustomerEmail()
         );
         
-        return timeSlotRepository.findById(command.getTimeSlotId())
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("TimeSlot", command.getTimeSlotId())))
+        return claimCapacity(command.getTimeSlotId())
                 .flatMap(timeSlot -> {
-                    // Create reservation using domain logic
-                    ReservationAggregate reservation = ReservationAggregate.createReservation(
+                    ReservationAggregate reservation = ReservationAggregate.createForClaimedCapacity(
                             customerInfo, timeSlot
                     );
                     
-                    // Reserve slot in aggregate
-                    timeSlot.reserveSlot();
+                    return reservationRepository.save(reservation)
+                            .flatMap(savedReservation -> publishEvents(reservation, timeSlot)
+                                    .thenReturn(toResponse(savedReservation, timeSlot)));
+                });
+    }
+
+    @Override
+    @Transactional
+    public Mono<ReservationResponse> placeHold(CreateReservationCommand command) {
+        log.info("Placing hold for customer: {}", command.getCustomerEmail());
+        
+        CustomerInfo customerInfo = new CustomerInfo(
+                command.getCustomerName(), 
+                command.getCustomerEmail()
+        );
+        LocalDateTime expiresAt = LocalDateTime.now().plus(properties.getHold().getTtl());
+        
+        return claimCapacity(command.getTimeSlotId())
+                .flatMap(timeSlot -> {
+                    ReservationAggregate hold = ReservationAggregate.placeHold(customerInfo, timeSlot, expiresAt);
+                    
+                    return reservationRepository.save(hold)
+                            .flatMap(savedHold -> afterCommit(() -> holdExpiry.schedule(savedHold.getId(), expiresAt))
+                                    .thenReturn(savedHold))
+                            .flatMap(savedHold -> publishEvents(hold, timeSlot)
+                                    .thenReturn(toResponse(savedHold, timeSlot)));
+                });
+    }
+
+    @Override
+    @Transactional
+    public Mono<ReservationResponse> confirmReservation(Long id) {
+        log.info("Confirming hold on reservation: {}", id);
+        
+        return retryOnConflict(Mono.defer(() -> reservationRepository.findById(id)
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Reservation", id)))
+                .flatMap(reservation -> timeSlotRepository.findById(reservation.getTimeSlotId())
+                        .flatMap(timeSlot -> {
+                            if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+                                return Mono.just(toResponse(reservation, timeSlot));
+                            }
+                            if (reservation.getStatus() != ReservationStatus.HOLD
+                                    || reservation.isHoldExpired(LocalDateTime.now())) {
+                                return Mono.error(new TimeSlotNotAvailableException(String.format(
+                                        "Hold on reservation %d has expired or was cancelled", id)));
+                            }
+                            
+                            reservation.confirm(timeSlot);
+                            
+                            return saveVersioned(reservation)
+                                    .flatMap(savedReservation -> afterCommit(() -> holdExpiry.cancel(id))
+                                            .thenReturn(savedReservation))
+                                    .flatMap(savedReservation -> publishEvents(reservation, timeSlot)
+                                            .thenReturn(toResponse(savedReservation, timeSlot)));
+                        }))));
+    }
+
+    @Override
+    @Transactional
+    public Mono<Void> expireHold(Long id) {
+        return retryOnConflict(Mono.defer(() -> reservationRepository.findById(id)
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.HOLD)
+                .flatMap(reservation -> {
+                    if (!reservation.isHoldExpired(LocalDateTime.now())) {
+                        // Fired early (e.g. clock adjustment), try again at the real deadline
+                        holdExpiry.schedule(id, reservation.getHoldExpiresAt());
+                        return Mono.empty();
+                    }
+                    
+                    log.info("Hold on reservation {} expired, releasing its capacity", id);
+                    reservation.cancel("Hold expired");
+                    
+                    return releaseCapacity(reservation);
+                })))
+                .then();
+    }
+
+    @Override
+    @Transactional
+    public Flux<ReservationBatchResult> createReservations(Flux<CreateReservationCommand> commands) {
+        int maxSize = properties.getBatch().getMaxSize();
+        
+        return commands.index()
+                .collectList()
+                .flatMapMany(indexed -> {
+                    if (indexed.size() > maxSize) {
+                        return Flux.error(new IllegalArgumentException(
+                                String.format("A batch may contain at most %d reservations", maxSize)));
+                    }
+                    log.info("Creating batch of {} reservations", indexed.size());
+                    
+                    // Group by slot so capacity is claimed once per slot, invalid items are rejected up front
+                    Map<Long, List<PendingReservation>> bySlot = new LinkedHashMap<>();
+                    List<ReservationBatchResult> invalid = new ArrayList<>();
+                    indexed.forEach(item -> {
+                        int index = item.getT1().intValue();
+                        CreateReservationCommand command = item.getT2();
+                        try {
+                            validate(command);
+                            CustomerInfo customerInfo = new CustomerInfo(
+                                    command.getCustomerName(), 
+                                    command.getCustomerEmail()
+                            );
+                            bySlot.computeIfAbsent(command.getTimeSlotId(), id -> new ArrayList<>())
+                                    .add(new PendingReservation(index, customerInfo));
+                        } catch (IllegalArgumentException e) {
+                            invalid.add(rejected(index, e));
+                        }
+                    });
                     
-                    // Save both aggregates
-                    return timeSlotRepository.save(timeSlot)
-                            .then(reservationRepository.save(reservation))
-                            .flatMap(savedReservation -> {
-                                // Publish all domain events
-                                return publishEvents(reservation, timeSlot)
-                                        .then(timeSlotRepository.findById(timeSlot.getId()))
-                                        .map(ts -> toResponse(savedReservation, ts));
-                            });
+                    return Flux.fromIterable(bySlot.entrySet())
+                            .concatMap(group -> reserveGroup(group.getKey(), group.getValue()))
+                            .concatWith(Flux.fromIterable(invalid))
+                            .sort(Comparator.comparing(ReservationBatchResult::getIndex));
                 });
     }
 
@@ -69,34 +202,62 @@ public class ReservationApplicationService implements ReservationUseCase {
     public Mono<ReservationResponse> getReservationById(Long id) {
         log.debug("Fetching reservation with id: {}", id);
         
-        return reservationRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Reservation", id)))
-                .flatMap(reservation -> 
-                    timeSlotRepository.findById(reservation.getTimeSlotId())
-                            .map(timeSlot -> toResponse(reservation, timeSlot))
-                );
+        if (properties.getView().isEnabled()) {
+            // The read model lags behind, a reservation just made is read from the write side
+            return reservationView.findById(id)
+                    .switchIfEmpty(Mono.defer(() -> reservationRepository.findResponseById(id)))
+                    .switchIfEmpty(Mono.error(new ResourceNotFoundException("Reservation", id)));
+        }
+        return reservationRepository.findResponseById(id)
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Reservation", id)));
     }
 
     @Override
     public Flux<ReservationResponse> getAllReservations() {
         log.debug("Fetching all reservations");
         
-        return reservationRepository.findAll()
-                .flatMap(reservation ->
-                    timeSlotRepository.findById(reservation.getTimeSlotId())
-                            .map(timeSlot -> toResponse(reservation, timeSlot))
-                );
+        return properties.getView().isEnabled()
+                ? reservationView.findAll()
+                : reservationRepository.findAllResponses();
+    }
+
+    @Override
+    public Mono<PageResponse<ReservationResponse>> getReservationsPage(String after, int limit) {
+        log.debug("Fetching {} reservations after cursor {}", limit, after);
+        
+        return Mono.fromCallable(() -> {
+                    PageCursor.checkLimit(limit);
+                    return PageCursor.decode(after);
+                })
+                .flatMap(afterId -> reservationRepository.findResponsesAfter(afterId, limit + 1).collectList())
+                .map(fetched -> PageResponse.of(fetched, limit, ReservationResponse::getId));
     }
 
     @Override
     public Flux<ReservationResponse> getReservationsByCustomer(String email) {
         log.debug("Fetching reservations for customer: {}", email);
         
-        return reservationRepository.findByCustomerEmail(email)
-                .flatMap(reservation ->
-                    timeSlotRepository.findById(reservation.getTimeSlotId())
-                            .map(timeSlot -> toResponse(reservation, timeSlot))
-                );
+        return properties.getView().isEnabled()
+                ? reservationView.findByCustomerEmail(email)
+                : reservationRepository.findResponsesByCustomerEmail(email);
+    }
+
+    @Override
+    public Flux<ReservationResponse> getReservationsByStatus(ReservationStatus status) {
+        log.debug("Fetching reservations with status: {}", status);
+        
+        return timeSlotResolver.resolve(reservationRepository.findByStatus(status), this::toResponse);
+    }
+
+    @Override
+    public Flux<ReservationResponse> exportReservations(ReservationExportFilter filter) {
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            return Flux.error(new IllegalArgumentException("Export range starts after it ends"));
+        }
+        log.info("Exporting reservations matching {}", filter);
+        
+        // Straight from the write side, the dump must not lag behind the read model
+        return reservationRepository.streamResponses(filter, properties.getExport().getFetchSize());
     }
 
     @Override
@@ -104,33 +265,168 @@ public class ReservationApplicationService implements ReservationUseCase {
     public Mono<ReservationResponse> cancelReservation(Long id, String reason) {
         log.info("Cancelling reservation: {}", id);
         
-        return reservationRepository.findById(id)
+        return retryOnConflict(Mono.defer(() -> reservationRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Reservation", id)))
                 .flatMap(reservation -> {
+                    if (!reservation.isActive()) {
+                        // Already cancelled, nothing to give back
+                        return timeSlotRepository.findById(reservation.getTimeSlotId())
+                                .map(timeSlot -> toResponse(reservation, timeSlot));
+                    }
+                    
+                    // A hold must keep its expiry until the cancellation is committed
+                    Mono<Void> stopExpiry = reservation.getStatus() == ReservationStatus.HOLD
+                            ? afterCommit(() -> holdExpiry.cancel(id))
+                            : Mono.empty();
+                    
                     // Cancel using domain logic
                     reservation.cancel(reason != null ? reason : "Customer requested");
                     
-                    return timeSlotRepository.findById(reservation.getTimeSlotId())
-                            .flatMap(timeSlot -> {
-                                // Release slot
-                                timeSlot.releaseSlot();
-                                
-                                // Save both aggregates
-                                return timeSlotRepository.save(timeSlot)
-                                        .then(reservationRepository.save(reservation))
-                                        .flatMap(savedReservation -> {
-                                            // Publish events
-                                            return publishEvents(reservation, timeSlot)
-                                                    .then(timeSlotRepository.findById(timeSlot.getId()))
-                                                    .map(ts -> toResponse(savedReservation, ts));
-                                        });
-                            });
-                });
+                    return stopExpiry.then(releaseCapacity(reservation));
+                })));
+    }
+    
+    /**
+     * Check a batch item against the constraints a single request is validated with, lengths included
+     */
+    private void validate(CreateReservationCommand command) {
+        Set<ConstraintViolation<CreateReservationCommand>> violations = validator.validate(command);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+    
+    /**
+     * Claim one unit of capacity and record it on the aggregate
+     */
+    private Mono<TimeSlotAggregate> claimCapacity(Long timeSlotId) {
+        return timeSlotRepository.claimCapacity(timeSlotId)
+                .switchIfEmpty(Mono.defer(() -> rejectClaim(timeSlotId)))
+                // Capacity was claimed by a single conditional update, record it on the aggregate
+                .doOnNext(TimeSlotAggregate::capacityClaimed);
+    }
+    
+    /**
+     * Save a reservation that was just cancelled and give back its capacity
+     * The versioned save goes first, so a conflicting attempt has released nothing and can simply run again
+     */
+    private Mono<ReservationResponse> releaseCapacity(ReservationAggregate reservation) {
+        return saveVersioned(reservation)
+                .flatMap(savedReservation -> timeSlotRepository.releaseCapacity(reservation.getTimeSlotId())
+                        .doOnNext(TimeSlotAggregate::capacityReleased)
+                        .switchIfEmpty(Mono.defer(() -> timeSlotRepository.findById(reservation.getTimeSlotId())))
+                        .flatMap(timeSlot -> publishEvents(reservation, timeSlot)
+                                .thenReturn(toResponse(savedReservation, timeSlot))));
+    }
+    
+    /**
+     * Save an existing reservation, counting version conflicts per time slot
+     */
+    private Mono<ReservationAggregate> saveVersioned(ReservationAggregate reservation) {
+        return reservationRepository.save(reservation)
+                .doOnError(OptimisticLockingFailureException.class, e -> meterRegistry.counter(
+                        "delivery.reservations.conflicts",
+                        "timeSlotId", String.valueOf(reservation.getTimeSlotId())).increment());
+    }
+    
+    /**
+     * Run the action once the caller's transaction committed, right away when there is none
+     * Nothing is run when the transaction rolls back, so a failed attempt leaves the hold's expiry in place.
+     */
+    private static Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .map(synchronizations -> {
+                    synchronizations.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(action);
+                        }
+                    });
+                    return true;
+                })
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .switchIfEmpty(Mono.fromRunnable(action))
+                .then();
+    }
+    
+    /**
+     * Run the attempt again, re-reading everything, when another writer changed the reservation under it
+     * Retries stay in the caller's transaction: under read committed each attempt sees the winner's commit,
+     * and a failed attempt wrote nothing since its versioned save is its first write.
+     */
+    private <T> Mono<T> retryOnConflict(Mono<T> attempt) {
+        ReservationProperties.ConflictRetry retry = properties.getConflictRetry();
+        
+        return attempt.retryWhen(Retry.backoff(retry.getMaxAttempts(), retry.getMinBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .jitter(retry.getJitter())
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+    
+    /**
+     * A failed claim means the slot is either unknown or full, tell the two apart for the caller
+     */
+    private Mono<TimeSlotAggregate> rejectClaim(Long timeSlotId) {
+        return timeSlotRepository.findById(timeSlotId)
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("TimeSlot", timeSlotId)))
+                .flatMap(timeSlot -> Mono.error(new TimeSlotNotAvailableException(timeSlotId)));
+    }
+    
+    /**
+     * Claim capacity for every reservation of one slot at once, reject what does not fit
+     */
+    private Flux<ReservationBatchResult> reserveGroup(Long timeSlotId, List<PendingReservation> pending) {
+        return timeSlotRepository.claimCapacity(timeSlotId, pending.size())
+                .flatMapMany(claim -> {
+                    TimeSlotAggregate timeSlot = claim.getTimeSlot();
+                    List<PendingReservation> accepted = pending.subList(0, claim.getClaimed());
+                    Flux<ReservationBatchResult> refused = Flux.fromIterable(pending.subList(claim.getClaimed(), pending.size()))
+                            .map(item -> rejected(item.index(), new TimeSlotNotAvailableException(timeSlotId)));
+                    
+                    if (accepted.isEmpty()) {
+                        return refused;
+                    }
+                    
+                    timeSlot.capacityClaimed(accepted.size());
+                    List<ReservationAggregate> reservations = accepted.stream()
+                            .map(item -> ReservationAggregate.createForClaimedCapacity(item.customerInfo(), timeSlot))
+                            .toList();
+                    
+                    return reservationRepository.insertAll(reservations)
+                            .then(publishEvents(reservations, timeSlot))
+                            .thenMany(Flux.range(0, accepted.size()))
+                            .map(i -> ReservationBatchResult.builder()
+                                    .index(accepted.get(i).index())
+                                    .confirmed(true)
+                                    .reservation(toResponse(reservations.get(i), timeSlot))
+                                    .build())
+                            .concatWith(refused);
+                })
+                .switchIfEmpty(Flux.fromIterable(pending)
+                        .map(item -> rejected(item.index(), new ResourceNotFoundException("TimeSlot", timeSlotId))));
+    }
+    
+    private ReservationBatchResult rejected(int index, RuntimeException reason) {
+        return ReservationBatchResult.builder()
+                .index(index)
+                .confirmed(false)
+                .rejectionReason(reason.getMessage())
+                .rejection(reason)
+                .build();
     }
     
     private Mono<Void> publishEvents(ReservationAggregate reservation, TimeSlotAggregate timeSlot) {
+        return publishEvents(List.of(reservation), timeSlot);
+    }
+    
+    private Mono<Void> publishEvents(Collection<ReservationAggregate> reservations, TimeSlotAggregate timeSlot) {
         Flux<DomainEvent> allEvents = Flux.concat(
-                Flux.fromIterable(reservation.pullDomainEvents()),
+                Flux.fromIterable(reservations).flatMapIterable(ReservationAggregate::pullDomainEvents),
                 Flux.fromIterable(timeSlot.pullDomainEvents())
         );
         
@@ -149,6 +445,7 @@ public class ReservationApplicationService implements ReservationUseCase {
                 .status(reservation.getStatus())
                 .createdAt(reservation.getCreatedAt())
                 .cancelledAt(reservation.getCancelledAt())
+                .holdExpiresAt(reservation.getHoldExpiresAt())
                 .build();
     }
     
@@ -165,4 +462,7 @@ public class ReservationApplicationService implements ReservationUseCase {
                 .isAvailable(timeSlot.hasAvailableCapacity())
                 .build();
     }
+    
+    private record PendingReservation(int index, CustomerInfo customerInfo) {
+    }
 }
@@ -0,0 +1,117 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.event.DomainEvent;
+import com.kata.delivery.domain.event.ReservationCancelledEvent;
+import com.kata.delivery.domain.event.ReservationCreatedEvent;
+import com.kata.delivery.domain.event.ReservationHeldEvent;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import com.kata.delivery.domain.port.inbound.ReservationViewUseCase;
+import com.kata.delivery.domain.port.outbound.ReservationViewRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Application service maintaining the reservation read model from domain events
+ * Each event is merged into the rows it concerns, so redelivered or reordered events leave the same result.
+ * The delay between an event and its projection is recorded as delivery.reservations.view.lag.
+ */
+@Service
+@Slf4j
+public class ReservationViewService implements ReservationViewUseCase {
+
+    private final ReservationViewRepositoryPort reservationView;
+    private final Timer lag;
+
+    public ReservationViewService(ReservationViewRepositoryPort reservationView, MeterRegistry meterRegistry) {
+        this.reservationView = reservationView;
+        this.lag = Timer.builder("delivery.reservations.view.lag")
+                .description("Time from a domain event to its projection in the reservation read model")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> project(DomainEvent event) {
+        Mono<Void> projection;
+        if (event instanceof ReservationCreatedEvent created) {
+            projection = reservationView.upsert(toView(created), created.getOccurredOn());
+        } else if (event instanceof ReservationHeldEvent held) {
+            projection = reservationView.upsert(toView(held), held.getOccurredOn());
+        } else if (event instanceof ReservationCancelledEvent cancelled) {
+            projection = reservationView.upsert(toView(cancelled), cancelled.getOccurredOn());
+        } else if (event instanceof TimeSlotCapacityChangedEvent changed) {
+            projection = reservationView.updateTimeSlot(changed.getTimeSlotId(), changed.getCapacity(),
+                    changed.getCurrentReservations(), changed.getOccurredOn());
+        } else {
+            return Mono.empty();
+        }
+        return projection.doOnSuccess(done ->
+                lag.record(Duration.between(event.getOccurredOn(), LocalDateTime.now())));
+    }
+
+    @Override
+    public Mono<Long> rebuild() {
+        log.info("Rebuilding the reservation read model");
+        return reservationView.rebuild()
+                .doOnNext(rows -> log.info("Reservation read model rebuilt with {} reservations", rows));
+    }
+
+    private static ReservationResponse toView(ReservationCreatedEvent event) {
+        return ReservationResponse.builder()
+                .id(event.getReservationId())
+                .customerName(event.getCustomerName())
+                .customerEmail(event.getCustomerEmail())
+                .timeSlotId(event.getTimeSlotId())
+                .timeSlot(TimeSlotResponse.builder()
+                        .id(event.getTimeSlotId())
+                        .deliveryMode(event.getDeliveryMode())
+                        .date(event.getDeliveryDate())
+                        .startTime(event.getDeliveryStartTime())
+                        .endTime(event.getDeliveryEndTime())
+                        .capacity(event.getTimeSlotCapacity())
+                        .currentReservations(event.getTimeSlotReservations())
+                        .build())
+                .status(ReservationStatus.CONFIRMED)
+                .createdAt(event.getCreatedAt())
+                .build();
+    }
+
+    private static ReservationResponse toView(ReservationHeldEvent event) {
+        return ReservationResponse.builder()
+                .id(event.getReservationId())
+                .customerName(event.getCustomerName())
+                .customerEmail(event.getCustomerEmail())
+                .timeSlotId(event.getTimeSlotId())
+                .timeSlot(TimeSlotResponse.builder()
+                        .id(event.getTimeSlotId())
+                        .deliveryMode(event.getDeliveryMode())
+                        .date(event.getDeliveryDate())
+                        .startTime(event.getDeliveryStartTime())
+                        .endTime(event.getDeliveryEndTime())
+                        .capacity(event.getTimeSlotCapacity())
+                        .currentReservations(event.getTimeSlotReservations())
+                        .build())
+                .status(ReservationStatus.HOLD)
+                .createdAt(event.getCreatedAt())
+                .holdExpiresAt(event.getHoldExpiresAt())
+                .build();
+    }
+
+    private static ReservationResponse toView(ReservationCancelledEvent event) {
+        return ReservationResponse.builder()
+                .id(event.getReservationId())
+                .customerEmail(event.getCustomerEmail())
+                .timeSlotId(event.getTimeSlotId())
+                .status(ReservationStatus.CANCELLED)
+                .cancelledAt(event.getOccurredOn())
+                .build();
+    }
+}
@@ -1,11 +1,17 @@
 package com.kata.delivery.application.service;
 
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
+import com.kata.delivery.application.dto.PageCursor;
+import com.kata.delivery.application.dto.PageResponse;
 import com.kata.delivery.application.dto.TimeSlotResponse;
 import com.kata.delivery.domain.DeliveryMode;
 import com.kata.delivery.domain.model.TimeSlotAggregate;
 import com.kata.delivery.domain.port.inbound.TimeSlotUseCase;
 import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
 import com.kata.delivery.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,9 +19,16 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Application service implementing time slot use cases
+ * Listings from today on are answered by the availability index once it is loaded, lookups are timed
+ * per query and source so the index can be compared with the database path.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,6 +36,10 @@ import java.time.LocalDate;
 public class TimeSlotApplicationService implements TimeSlotUseCase {
 
     private final TimeSlotRepositoryPort timeSlotRepository;
+    private final AvailableTimeSlotCache availableTimeSlotCache;
+    private final TimeSlotAvailabilityIndex availabilityIndex;
+    private final MeterRegistry meterRegistry;
+    private final TimeSlotProperties properties;
 
     @Override
     public Flux<TimeSlotResponse> getAllTimeSlots() {
@@ -31,6 +48,19 @@ public class TimeSlotApplicationService implements TimeSlotUseCase {
                 .map(this::toResponse);
     }
 
+    @Override
+    public Mono<PageResponse<TimeSlotResponse>> getTimeSlotsPage(String after, int limit) {
+        log.debug("Fetching {} time slots after cursor {}", limit, after);
+        return Mono.fromCallable(() -> {
+                    PageCursor.checkLimit(limit);
+                    return PageCursor.decode(after);
+                })
+                .flatMap(afterId -> timeSlotRepository.findAllAfter(afterId, limit + 1)
+                        .map(this::toResponse)
+                        .collectList())
+                .map(fetched -> PageResponse.of(fetched, limit, TimeSlotResponse::getId));
+    }
+
     @Override
     public Mono<TimeSlotResponse> getTimeSlotById(Long id) {
         log.debug("Fetching time slot with id: {}", id);
@@ -42,22 +72,116 @@ public class TimeSlotApplicationService implements TimeSlotUseCase {
     @Override
     public Flux<TimeSlotResponse> getTimeSlotsByDeliveryMode(DeliveryMode deliveryMode) {
         log.debug("Fetching time slots for delivery mode: {}", deliveryMode);
-        return timeSlotRepository.findByDeliveryMode(deliveryMode)
-                .map(this::toResponse);
+        LocalDate indexedFrom = availabilityIndex.indexedFrom();
+        if (indexedFrom == null) {
+            return timed("by-delivery-mode", timeSlotRepository.findByDeliveryMode(deliveryMode)
+                    .map(this::toResponse));
+        }
+        // Days before the index are only kept in the database
+        return timeSlotRepository.findByDeliveryModeAndDateBefore(deliveryMode, indexedFrom)
+                .map(this::toResponse)
+                .concatWith(indexed("by-delivery-mode", () -> availabilityIndex.findByDeliveryMode(deliveryMode)));
     }
 
     @Override
     public Flux<TimeSlotResponse> getTimeSlotsByDate(LocalDate date) {
         log.debug("Fetching time slots for date: {}", date);
-        return timeSlotRepository.findByDate(date)
-                .map(this::toResponse);
+        if (availabilityIndex.covers(date)) {
+            return indexed("by-date", () -> availabilityIndex.findByDate(date));
+        }
+        return timed("by-date", timeSlotRepository.findByDate(date)
+                .map(this::toResponse));
     }
 
     @Override
     public Flux<TimeSlotResponse> getAvailableTimeSlots(DeliveryMode deliveryMode, LocalDate date) {
         log.debug("Fetching available time slots for mode: {} and date: {}", deliveryMode, date);
-        return timeSlotRepository.findAvailableSlots(deliveryMode, date)
-                .map(this::toResponse);
+        if (availabilityIndex.covers(date)) {
+            return indexed("available", () -> availabilityIndex.findAvailable(deliveryMode, date));
+        }
+        return availableTimeSlotCache.get(deliveryMode, date, () -> timed("available", timeSlotRepository
+                .findAvailableSlots(deliveryMode, date)
+                .map(this::toResponse)));
+    }
+    
+    @Override
+    public Flux<TimeSlotResponse> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return Flux.error(new IllegalArgumentException("from must not be after to"));
+        }
+        log.debug("Fetching available time slots for mode: {} from: {} to: {}", deliveryMode, from, to);
+        if (availabilityIndex.covers(from)) {
+            return indexed("available-between", () -> availabilityIndex.findAvailableBetween(deliveryMode, from, to));
+        }
+        return timed("available-between", timeSlotRepository.findAvailableBetween(deliveryMode, from, to)
+                .map(this::toResponse));
+    }
+    
+    @Override
+    public Flux<TimeSlotResponse> findNextAvailable(DeliveryMode deliveryMode, LocalDateTime after, int limit) {
+        if (limit < 1 || limit > PageCursor.MAX_LIMIT) {
+            return Flux.error(new IllegalArgumentException("limit must be between 1 and " + PageCursor.MAX_LIMIT));
+        }
+        log.debug("Fetching {} next available time slots for mode: {} after: {}", limit, deliveryMode, after);
+        if (availabilityIndex.covers(after.toLocalDate())) {
+            return indexed("next-available", () -> availabilityIndex.findNextAvailable(deliveryMode, after, limit));
+        }
+        return timed("next-available", timeSlotRepository.findNextAvailable(deliveryMode, after, limit)
+                .map(this::toResponse));
+    }
+    
+    @Override
+    public Mono<List<AvailabilityDayResponse>> getAvailabilityCalendar(DeliveryMode deliveryMode, LocalDate from, int days) {
+        int maxDays = properties.getCalendar().getMaxDays();
+        if (days < 1 || days > maxDays) {
+            return Mono.error(new IllegalArgumentException("Calendar days must be between 1 and " + maxDays));
+        }
+        log.debug("Fetching {} days of availability for mode: {} from: {}", days, deliveryMode, from);
+        LocalDate to = from.plusDays(days - 1L);
+        return availableTimeSlotCache.getCalendar(deliveryMode, from, days, () -> timed("calendar",
+                        timeSlotRepository.findAvailabilityCalendar(deliveryMode, from, to))
+                .collectMap(AvailabilityDayResponse::getDate, Function.identity())
+                // Days without slots are listed too, the client gets one entry per day
+                .map(byDate -> from.datesUntil(to.plusDays(1))
+                        .map(date -> byDate.getOrDefault(date, AvailabilityDayResponse.empty(date)))
+                        .collect(Collectors.toList())));
+    }
+    
+    @Override
+    public Mono<String> getTimeSlotsVersion(DeliveryMode deliveryMode, LocalDate date) {
+        return Mono.justOrEmpty(availabilityIndex.versionTag(deliveryMode, date));
+    }
+    
+    @Override
+    public Flux<TimeSlotResponse> watchTimeSlots(DeliveryMode deliveryMode, LocalDate date) {
+        log.debug("Watching time slots for mode: {} and date: {}", deliveryMode, date);
+        if (availabilityIndex.indexedFrom() == null) {
+            // No index to follow changes from, hand out the current state only
+            return timeSlotRepository.findAll()
+                    .filter(slot -> (deliveryMode == null || slot.getDeliveryMode() == deliveryMode)
+                            && (date == null || slot.getDate().equals(date)))
+                    .map(this::toResponse);
+        }
+        return availabilityIndex.watch(deliveryMode, date);
+    }
+    
+    private Flux<TimeSlotResponse> indexed(String query, Supplier<List<TimeSlotResponse>> lookup) {
+        return Flux.defer(() -> Flux.fromIterable(lookupTimer(query, "index").record(lookup)));
+    }
+    
+    private <T> Flux<T> timed(String query, Flux<T> lookup) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return lookup.doOnComplete(() -> sample.stop(lookupTimer(query, "database")));
+        });
+    }
+    
+    private Timer lookupTimer(String query, String source) {
+        return Timer.builder("delivery.time-slots.lookups")
+                .description("Time to list time slots, from the availability index or the database")
+                .tag("query", query)
+                .tag("source", source)
+                .register(meterRegistry);
     }
     
     private TimeSlotResponse toResponse(TimeSlotAggregate timeSlot) {
@@ -0,0 +1,458 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the time slots from the day it was loaded on, by delivery mode then date
+ * The slots of one day are kept in parallel primitive arrays sorted by start time, with a bitset of
+ * the slots that still have room, so a lookup copies a few ints and allocates no aggregate.
+ * A day is replaced as a whole when one of its slots changes, readers never see it half updated.
+ * Changed slots are re-read by id in batches, which keeps the index right whatever order the
+ * capacity events arrive in. Every slot written is also pushed to the subscribers watching it.
+ */
+@Component
+@Slf4j
+public class TimeSlotAvailabilityIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final TimeSlotRepositoryPort timeSlotRepository;
+    private final TimeSlotProperties.AvailabilityIndex config;
+
+    private final Map<DeliveryMode, ConcurrentSkipListMap<LocalDate, DaySlots>> days = new EnumMap<>(DeliveryMode.class);
+    private final Sinks.Many<Long> refreshes = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Many<TimeSlotResponse> updates = Sinks.many().multicast().directBestEffort();
+
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private volatile LocalDate indexedFrom;
+    private Disposable refresher;
+
+    public TimeSlotAvailabilityIndex(TimeSlotRepositoryPort timeSlotRepository, TimeSlotProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.timeSlotRepository = timeSlotRepository;
+        this.config = properties.getAvailabilityIndex();
+        for (DeliveryMode deliveryMode : DeliveryMode.values()) {
+            days.put(deliveryMode, new ConcurrentSkipListMap<>());
+        }
+        Gauge.builder("delivery.time-slots.index.slots", this, TimeSlotAvailabilityIndex::size)
+                .description("Time slots held by the availability index")
+                .register(meterRegistry);
+        Gauge.builder("delivery.time-slots.index.bytes", this, TimeSlotAvailabilityIndex::footprint)
+                .description("Bytes taken by the arrays of the availability index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("delivery.time-slots.stream.subscribers", updates, Sinks.Many::currentSubscriberCount)
+                .description("Clients watching time slot changes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<TimeSlotAggregate> slots = timeSlotRepository.findByDateGreaterThanEqual(today)
+                .collectList()
+                .block();
+        slots.stream()
+                .collect(Collectors.groupingBy(TimeSlotAggregate::getDeliveryMode,
+                        Collectors.groupingBy(TimeSlotAggregate::getDate)))
+                .forEach((deliveryMode, byDate) -> byDate.forEach((date, daySlots) ->
+                        days.get(deliveryMode).put(date, DaySlots.of(daySlots))));
+        indexedFrom = today;
+
+        // Changes seen while loading were buffered by the sink and are applied now
+        refresher = refreshes.asFlux()
+                .bufferTimeout(config.getRefreshBatchSize(), config.getRefreshMaxWait())
+                .concatMap(ids -> timeSlotRepository.findAllById(ids.stream().distinct().toList())
+                        .doOnNext(this::apply)
+                        .onErrorResume(e -> {
+                            log.error("Availability index refresh of slots {} failed", ids, e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+        log.info("Availability index loaded {} time slots from {}, about {} bytes", slots.size(), today, footprint());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Whether lookups for the date can be answered from the index
+     */
+    public boolean covers(LocalDate date) {
+        LocalDate from = indexedFrom;
+        return from != null && !date.isBefore(from);
+    }
+
+    /**
+     * First day held by the index, null until it is loaded
+     */
+    public LocalDate indexedFrom() {
+        return indexedFrom;
+    }
+
+    public List<TimeSlotResponse> findAvailable(DeliveryMode deliveryMode, LocalDate date) {
+        List<TimeSlotResponse> responses = new ArrayList<>();
+        DaySlots day = days.get(deliveryMode).get(date);
+        if (day != null) {
+            for (int i = day.open.nextSetBit(0); i >= 0; i = day.open.nextSetBit(i + 1)) {
+                responses.add(day.toResponse(i, deliveryMode, date));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Slots of the mode with room left from one date to the other, both included, by date then start time
+     */
+    public List<TimeSlotResponse> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to) {
+        List<TimeSlotResponse> responses = new ArrayList<>();
+        days.get(deliveryMode).subMap(from, true, to, true).forEach((date, day) -> {
+            for (int i = day.open.nextSetBit(0); i >= 0; i = day.open.nextSetBit(i + 1)) {
+                responses.add(day.toResponse(i, deliveryMode, date));
+            }
+        });
+        return responses;
+    }
+
+    /**
+     * First slots of the mode with room left starting at or after the given time, by date then start time
+     * Only the days up to the last one needed are visited, and the first of them from the given time on.
+     */
+    public List<TimeSlotResponse> findNextAvailable(DeliveryMode deliveryMode, LocalDateTime after, int limit) {
+        List<TimeSlotResponse> responses = new ArrayList<>();
+        int earliest = DaySlots.epochMinuteAtOrAfter(after);
+        for (Map.Entry<LocalDate, DaySlots> entry : days.get(deliveryMode).tailMap(after.toLocalDate(), true).entrySet()) {
+            DaySlots day = entry.getValue();
+            for (int i = day.open.nextSetBit(day.firstStartingAt(earliest)); i >= 0 && responses.size() < limit;
+                 i = day.open.nextSetBit(i + 1)) {
+                responses.add(day.toResponse(i, deliveryMode, entry.getKey()));
+            }
+            if (responses.size() >= limit) {
+                break;
+            }
+        }
+        return responses;
+    }
+
+    public List<TimeSlotResponse> findByDate(LocalDate date) {
+        List<TimeSlotResponse> responses = new ArrayList<>();
+        days.forEach((deliveryMode, byDate) -> {
+            DaySlots day = byDate.get(date);
+            if (day != null) {
+                day.addAll(responses, deliveryMode, date);
+            }
+        });
+        return responses;
+    }
+
+    public List<TimeSlotResponse> findByDeliveryMode(DeliveryMode deliveryMode) {
+        List<TimeSlotResponse> responses = new ArrayList<>();
+        days.get(deliveryMode).forEach((date, day) -> day.addAll(responses, deliveryMode, date));
+        return responses;
+    }
+
+    /**
+     * Tag of the slots of the mode, or of every mode when null, on the date, empty when the date is not indexed
+     * It changes with any change to those slots and differs between instances, which count changes on their own.
+     */
+    public Optional<String> versionTag(DeliveryMode deliveryMode, LocalDate date) {
+        if (!covers(date)) {
+            return Optional.empty();
+        }
+        // Day versions only go up, so their sum moves whenever one of them does
+        long version = (deliveryMode == null ? days.values().stream() : Stream.of(days.get(deliveryMode)))
+                .map(byDate -> byDate.get(date))
+                .filter(Objects::nonNull)
+                .mapToLong(day -> day.version)
+                .sum();
+        return Optional.of(instanceId + "-" + version);
+    }
+
+    /**
+     * Current state of the matching slots then every change to them, never completes
+     * Each subscriber buffers at most the latest state of each slot it watches, a null filter matches all.
+     */
+    public Flux<TimeSlotResponse> watch(DeliveryMode deliveryMode, LocalDate date) {
+        return LatestPerKey.of(
+                updates.asFlux().filter(slot -> matches(slot, deliveryMode, date)),
+                () -> snapshot(deliveryMode, date),
+                TimeSlotResponse::getId);
+    }
+
+    private List<TimeSlotResponse> snapshot(DeliveryMode deliveryMode, LocalDate date) {
+        if (date != null) {
+            List<TimeSlotResponse> slots = findByDate(date);
+            return deliveryMode == null ? slots : slots.stream()
+                    .filter(slot -> slot.getDeliveryMode() == deliveryMode)
+                    .toList();
+        }
+        if (deliveryMode != null) {
+            return findByDeliveryMode(deliveryMode);
+        }
+        List<TimeSlotResponse> slots = new ArrayList<>();
+        days.keySet().forEach(mode -> slots.addAll(findByDeliveryMode(mode)));
+        return slots;
+    }
+
+    private static boolean matches(TimeSlotResponse slot, DeliveryMode deliveryMode, LocalDate date) {
+        return (deliveryMode == null || slot.getDeliveryMode() == deliveryMode)
+                && (date == null || slot.getDate().equals(date));
+    }
+
+    /**
+     * Queue the changed or newly saved slot for a refresh once the change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCapacityChanged(TimeSlotCapacityChangedEvent event) {
+        refresh(event.getTimeSlotId());
+    }
+
+    public void refresh(Long timeSlotId) {
+        if (config.isEnabled() && timeSlotId != null) {
+            refreshes.emitNext(timeSlotId, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        }
+    }
+
+    /**
+     * Write the slot into its day, only ever called from the refresh stream
+     * A slot never changes delivery mode or date, so it stays in the day it was first put in.
+     */
+    void apply(TimeSlotAggregate slot) {
+        if (!covers(slot.getDate())) {
+            return;
+        }
+        ConcurrentSkipListMap<LocalDate, DaySlots> byDate = days.get(slot.getDeliveryMode());
+        DaySlots previous = byDate.get(slot.getDate());
+        DaySlots day = byDate.compute(slot.getDate(),
+                (date, current) -> current == null ? DaySlots.of(List.of(slot), 1) : current.with(slot));
+        if (day != previous) {
+            updates.tryEmitNext(day.toResponse(day.indexOf(slot.getId()), slot.getDeliveryMode(), slot.getDate()));
+        }
+    }
+
+    private long size() {
+        return days.values().stream()
+                .flatMap(byDate -> byDate.values().stream())
+                .mapToLong(day -> day.ids.length)
+                .sum();
+    }
+
+    private long footprint() {
+        return days.values().stream()
+                .flatMap(byDate -> byDate.values().stream())
+                .mapToLong(DaySlots::footprint)
+                .sum();
+    }
+
+    /**
+     * Slots of one delivery mode on one day, sorted by start time, never modified once built
+     * The version counts the changes made to the day since the index was loaded.
+     */
+    private static final class DaySlots {
+
+        private final long version;
+        private final long[] ids;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] capacities;
+        private final int[] reserved;
+        private final BitSet open;
+
+        private DaySlots(int size, long version) {
+            this.version = version;
+            this.ids = new long[size];
+            this.starts = new int[size];
+            this.ends = new int[size];
+            this.capacities = new int[size];
+            this.reserved = new int[size];
+            this.open = new BitSet(size);
+        }
+
+        private static DaySlots of(List<TimeSlotAggregate> slots) {
+            return of(slots, 0);
+        }
+
+        private static DaySlots of(List<TimeSlotAggregate> slots, long version) {
+            List<TimeSlotAggregate> sorted = slots.stream()
+                    .sorted(Comparator.comparing(TimeSlotAggregate::getStartTime).thenComparing(TimeSlotAggregate::getId))
+                    .toList();
+            DaySlots day = new DaySlots(sorted.size(), version);
+            for (int i = 0; i < sorted.size(); i++) {
+                TimeSlotAggregate slot = sorted.get(i);
+                day.ids[i] = slot.getId();
+                day.starts[i] = epochMinute(slot.getDate(), slot.getStartTime());
+                day.ends[i] = epochMinute(slot.getDate(), slot.getEndTime());
+                day.capacities[i] = slot.getCapacity();
+                day.reserved[i] = slot.getCurrentReservations();
+                day.open.set(i, slot.hasAvailableCapacity());
+            }
+            return day;
+        }
+
+        /**
+         * The day with the slot written in, itself when the slot did not change
+         */
+        private DaySlots with(TimeSlotAggregate slot) {
+            int i = indexOf(slot.getId());
+            if (i < 0 || starts[i] != epochMinute(slot.getDate(), slot.getStartTime())) {
+                // New slot or moved within the day, rebuild to keep the start time order
+                List<TimeSlotAggregate> slots = toAggregatesExcept(slot.getId());
+                slots.add(slot);
+                return of(slots, version + 1);
+            }
+            if (ends[i] == epochMinute(slot.getDate(), slot.getEndTime()) && capacities[i] == slot.getCapacity()
+                    && reserved[i] == slot.getCurrentReservations()) {
+                return this;
+            }
+            DaySlots day = copy();
+            day.ends[i] = epochMinute(slot.getDate(), slot.getEndTime());
+            day.capacities[i] = slot.getCapacity();
+            day.reserved[i] = slot.getCurrentReservations();
+            day.open.set(i, slot.hasAvailableCapacity());
+            return day;
+        }
+
+        private DaySlots copy() {
+            int size = ids.length;
+            DaySlots day = new DaySlots(size, version + 1);
+            System.arraycopy(ids, 0, day.ids, 0, size);
+            System.arraycopy(starts, 0, day.starts, 0, size);
+            System.arraycopy(ends, 0, day.ends, 0, size);
+            System.arraycopy(capacities, 0, day.capacities, 0, size);
+            System.arraycopy(reserved, 0, day.reserved, 0, size);
+            day.open.or(open);
+            return day;
+        }
+
+        /**
+         * Position of the first slot starting at or after the epoch minute, the size when there is none
+         */
+        private int firstStartingAt(int epochMinute) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < epochMinute) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void addAll(List<TimeSlotResponse> responses, DeliveryMode deliveryMode, LocalDate date) {
+            for (int i = 0; i < ids.length; i++) {
+                responses.add(toResponse(i, deliveryMode, date));
+            }
+        }
+
+        private TimeSlotResponse toResponse(int i, DeliveryMode deliveryMode, LocalDate date) {
+            return TimeSlotResponse.builder()
+                    .id(ids[i])
+                    .deliveryMode(deliveryMode)
+                    .date(date)
+                    .startTime(timeOf(starts[i]))
+                    .endTime(timeOf(ends[i]))
+                    .capacity(capacities[i])
+                    .currentReservations(reserved[i])
+                    .availableSlots(capacities[i] - reserved[i])
+                    .isAvailable(open.get(i))
+                    .build();
+        }
+
+        /**
+         * Aggregates for every slot but the excluded one, only used when a slot is added or moved
+         */
+        private List<TimeSlotAggregate> toAggregatesExcept(long excludedId) {
+            List<TimeSlotAggregate> slots = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == excludedId) {
+                    continue;
+                }
+                TimeSlotAggregate slot = new TimeSlotAggregate();
+                slot.setId(ids[i]);
+                slot.setDate(LocalDate.ofEpochDay(Math.floorDiv(starts[i], MINUTES_PER_DAY)));
+                slot.setStartTime(timeOf(starts[i]));
+                slot.setEndTime(timeOf(ends[i]));
+                slot.setCapacity(capacities[i]);
+                slot.setCurrentReservations(reserved[i]);
+                slots.add(slot);
+            }
+            return slots;
+        }
+
+        /**
+         * Array payload plus headers, 16 bytes per array on a 64-bit JVM with compressed oops
+         */
+        private long footprint() {
+            return 5L * 16 + ids.length * (long) Long.BYTES
+                    + 4L * ids.length * Integer.BYTES
+                    + open.size() / Byte.SIZE;
+        }
+
+        private static int epochMinute(LocalDate date, LocalTime time) {
+            return Math.toIntExact(date.toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60L + time.getMinute());
+        }
+
+        private static int epochMinuteAtOrAfter(LocalDateTime time) {
+            int minute = epochMinute(time.toLocalDate(), time.toLocalTime());
+            return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+        }
+
+        private static LocalTime timeOf(int epochMinute) {
+            return LocalTime.ofSecondOfDay(Math.floorMod(epochMinute, MINUTES_PER_DAY) * 60L);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.domain.model.ReservationAggregate;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Joins a stream of reservations with their time slots, one query per batch instead of one per reservation
+ * Reservations are buffered by count or time, the distinct slot ids of a buffer are loaded together
+ * and shared by every reservation of that buffer. Output keeps the order of the input.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimeSlotResolver {
+
+    /**
+     * Batches being resolved at once, the next one is fetched while the previous one is emitted
+     */
+    private static final int CONCURRENT_BATCHES = 2;
+
+    private final TimeSlotRepositoryPort timeSlotRepository;
+    private final ReservationProperties properties;
+
+    public <R> Flux<R> resolve(Flux<ReservationAggregate> reservations,
+                               BiFunction<ReservationAggregate, TimeSlotAggregate, R> join) {
+        ReservationProperties.TimeSlotResolution resolution = properties.getTimeSlotResolution();
+
+        return reservations
+                .bufferTimeout(resolution.getBatchSize(), resolution.getMaxWait())
+                .flatMapSequential(batch -> resolveBatch(batch, join), CONCURRENT_BATCHES);
+    }
+
+    private <R> Flux<R> resolveBatch(List<ReservationAggregate> batch,
+                                     BiFunction<ReservationAggregate, TimeSlotAggregate, R> join) {
+        List<Long> timeSlotIds = batch.stream()
+                .map(ReservationAggregate::getTimeSlotId)
+                .distinct()
+                .toList();
+
+        return timeSlotRepository.findAllById(timeSlotIds)
+                .collectMap(TimeSlotAggregate::getId)
+                .flatMapIterable(timeSlots -> batch.stream()
+                        .map(reservation -> joinIfPresent(reservation, timeSlots, join))
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+
+    private static <R> R joinIfPresent(ReservationAggregate reservation, Map<Long, TimeSlotAggregate> timeSlots,
+                                       BiFunction<ReservationAggregate, TimeSlotAggregate, R> join) {
+        TimeSlotAggregate timeSlot = timeSlots.get(reservation.getTimeSlotId());
+        return timeSlot != null ? join.apply(reservation, timeSlot) : null;
+    }
+}
@@ -17,5 +17,10 @@ public enum ReservationStatus {
     /**
      * Reservation is pending confirmation
      */
-    PENDING
+    PENDING,
+    
+    /**
+     * Capacity is held for the customer until the hold is confirmed or expires
+     */
+    HOLD
 }
@@ -15,7 +15,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class ReservationCancelledEvent implements DomainEvent {
+public class ReservationCancelledEvent implements ReservationEvent {
     
     @Builder.Default
     private UUID eventId = UUID.randomUUID();
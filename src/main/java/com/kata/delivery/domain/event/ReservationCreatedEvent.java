@@ -18,7 +18,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class ReservationCreatedEvent implements DomainEvent {
+public class ReservationCreatedEvent implements ReservationEvent {
     
     @Builder.Default
     private UUID eventId = UUID.randomUUID();
@@ -34,6 +34,9 @@ public class ReservationCreatedEvent implements DomainEvent {
     private LocalDate deliveryDate;
     private LocalTime deliveryStartTime;
     private LocalTime deliveryEndTime;
+    private Integer timeSlotCapacity;
+    private Integer timeSlotReservations;
+    private LocalDateTime createdAt;
     
     @Override
     public String getEventType() {
@@ -0,0 +1,14 @@
+package com.kata.delivery.domain.event;
+
+/**
+ * Domain event about one reservation
+ */
+public interface ReservationEvent extends TimeSlotEvent {
+    
+    Long getReservationId();
+    
+    /**
+     * Events raised before the reservation is first saved only learn its id afterwards
+     */
+    void setReservationId(Long reservationId);
+}
@@ -0,0 +1,46 @@
+package com.kata.delivery.domain.event;
+
+import com.kata.delivery.domain.DeliveryMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Domain event published when capacity is held for a customer until the hold is confirmed or expires
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationHeldEvent implements ReservationEvent {
+    
+    @Builder.Default
+    private UUID eventId = UUID.randomUUID();
+    
+    @Builder.Default
+    private LocalDateTime occurredOn = LocalDateTime.now();
+    
+    private Long reservationId;
+    private String customerName;
+    private String customerEmail;
+    private Long timeSlotId;
+    private DeliveryMode deliveryMode;
+    private LocalDate deliveryDate;
+    private LocalTime deliveryStartTime;
+    private LocalTime deliveryEndTime;
+    private Integer timeSlotCapacity;
+    private Integer timeSlotReservations;
+    private LocalDateTime createdAt;
+    private LocalDateTime holdExpiresAt;
+    
+    @Override
+    public String getEventType() {
+        return "ReservationHeld";
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -16,7 +17,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class TimeSlotCapacityChangedEvent implements DomainEvent {
+public class TimeSlotCapacityChangedEvent implements TimeSlotEvent {
     
     @Builder.Default
     private UUID eventId = UUID.randomUUID();
@@ -26,6 +27,7 @@ public class TimeSlotCapacityChangedEvent implements DomainEvent {
     
     private Long timeSlotId;
     private DeliveryMode deliveryMode;
+    private LocalDate date;
     private Integer previousReservations;
     private Integer currentReservations;
     private Integer capacity;
@@ -0,0 +1,9 @@
+package com.kata.delivery.domain.event;
+
+/**
+ * Domain event about one time slot
+ */
+public interface TimeSlotEvent extends DomainEvent {
+    
+    Long getTimeSlotId();
+}
@@ -0,0 +1,13 @@
+package com.kata.delivery.domain.model;
+
+import lombok.Value;
+
+/**
+ * Value Object recording what an idempotency key was first used for (DDD pattern)
+ * The fingerprint identifies the request, a retry under the same key must carry the same one
+ */
+@Value
+public class IdempotencyRecord {
+    Long reservationId;
+    String requestFingerprint;
+}
@@ -4,9 +4,12 @@ import com.kata.delivery.domain.ReservationStatus;
 import com.kata.delivery.domain.event.DomainEvent;
 import com.kata.delivery.domain.event.ReservationCancelledEvent;
 import com.kata.delivery.domain.event.ReservationCreatedEvent;
+import com.kata.delivery.domain.event.ReservationEvent;
+import com.kata.delivery.domain.event.ReservationHeldEvent;
 import lombok.Getter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.LocalDateTime;
@@ -30,6 +33,13 @@ public class ReservationAggregate {
     private ReservationStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime cancelledAt;
+    private LocalDateTime holdExpiresAt;
+    
+    /**
+     * Optimistic lock, concurrent confirm, cancel and expiry of the same reservation cannot both win
+     */
+    @Version
+    private Long version;
     
     @Transient
     private final List<DomainEvent> domainEvents = new ArrayList<>();
@@ -49,16 +59,37 @@ public class ReservationAggregate {
             throw new IllegalStateException("Time slot is fully booked");
         }
         
+        return newReservation(customerInfo, timeSlot);
+    }
+    
+    /**
+     * Factory method for a slot whose capacity was already claimed atomically,
+     * so the slot may legitimately be full once this reservation is counted
+     */
+    public static ReservationAggregate createForClaimedCapacity(
+            CustomerInfo customerInfo, 
+            TimeSlotAggregate timeSlot) {
+        return newReservation(customerInfo, timeSlot);
+    }
+    
+    /**
+     * Factory method to hold capacity already claimed on a slot until expiresAt,
+     * the reservation is only created for good once confirmed
+     */
+    public static ReservationAggregate placeHold(
+            CustomerInfo customerInfo, 
+            TimeSlotAggregate timeSlot,
+            LocalDateTime expiresAt) {
+        
         ReservationAggregate reservation = new ReservationAggregate();
         reservation.customerName = customerInfo.getName();
         reservation.customerEmail = customerInfo.getEmail();
         reservation.timeSlotId = timeSlot.getId();
-        reservation.status = ReservationStatus.CONFIRMED;
+        reservation.status = ReservationStatus.HOLD;
         reservation.createdAt = LocalDateTime.now();
+        reservation.holdExpiresAt = expiresAt;
         
-        // Publish domain event
-        reservation.domainEvents.add(ReservationCreatedEvent.builder()
-                .reservationId(reservation.id)
+        reservation.domainEvents.add(ReservationHeldEvent.builder()
                 .customerName(reservation.customerName)
                 .customerEmail(reservation.customerEmail)
                 .timeSlotId(timeSlot.getId())
@@ -66,11 +97,55 @@ public class ReservationAggregate {
                 .deliveryDate(timeSlot.getDate())
                 .deliveryStartTime(timeSlot.getStartTime())
                 .deliveryEndTime(timeSlot.getEndTime())
+                .timeSlotCapacity(timeSlot.getCapacity())
+                .timeSlotReservations(timeSlot.getCurrentReservations())
+                .createdAt(reservation.createdAt)
+                .holdExpiresAt(expiresAt)
                 .build());
         
         return reservation;
     }
     
+    private static ReservationAggregate newReservation(
+            CustomerInfo customerInfo, 
+            TimeSlotAggregate timeSlot) {
+        
+        ReservationAggregate reservation = new ReservationAggregate();
+        reservation.customerName = customerInfo.getName();
+        reservation.customerEmail = customerInfo.getEmail();
+        reservation.timeSlotId = timeSlot.getId();
+        reservation.status = ReservationStatus.CONFIRMED;
+        reservation.createdAt = LocalDateTime.now();
+        
+        reservation.registerCreated(timeSlot);
+        
+        return reservation;
+    }
+    
+    /**
+     * Business logic: Confirm a hold before it expires
+     */
+    public void confirm(TimeSlotAggregate timeSlot) {
+        if (this.status == ReservationStatus.CONFIRMED) {
+            return; // Already confirmed, idempotent
+        }
+        if (this.status != ReservationStatus.HOLD || isHoldExpired(LocalDateTime.now())) {
+            throw new IllegalStateException("Only an unexpired hold can be confirmed");
+        }
+        
+        this.status = ReservationStatus.CONFIRMED;
+        this.holdExpiresAt = null;
+        
+        registerCreated(timeSlot);
+    }
+    
+    /**
+     * Check if this is a hold whose time is up
+     */
+    public boolean isHoldExpired(LocalDateTime now) {
+        return status == ReservationStatus.HOLD && !now.isBefore(holdExpiresAt);
+    }
+    
     /**
      * Business logic: Cancel reservation
      */
@@ -92,10 +167,10 @@ public class ReservationAggregate {
     }
     
     /**
-     * Check if reservation is active
+     * Check if reservation is active, i.e. counts against the slot capacity
      */
     public boolean isActive() {
-        return status == ReservationStatus.CONFIRMED;
+        return status == ReservationStatus.CONFIRMED || status == ReservationStatus.HOLD;
     }
     
     /**
@@ -104,9 +179,32 @@ public class ReservationAggregate {
     public List<DomainEvent> pullDomainEvents() {
         List<DomainEvent> events = new ArrayList<>(domainEvents);
         domainEvents.clear();
+        // Events raised before the first save carry the id it assigned
+        events.forEach(event -> {
+            if (event instanceof ReservationEvent reservationEvent && reservationEvent.getReservationId() == null) {
+                reservationEvent.setReservationId(this.id);
+            }
+        });
         return events;
     }
     
+    private void registerCreated(TimeSlotAggregate timeSlot) {
+        // Publish domain event
+        domainEvents.add(ReservationCreatedEvent.builder()
+                .reservationId(this.id)
+                .customerName(this.customerName)
+                .customerEmail(this.customerEmail)
+                .timeSlotId(timeSlot.getId())
+                .deliveryMode(timeSlot.getDeliveryMode())
+                .deliveryDate(timeSlot.getDate())
+                .deliveryStartTime(timeSlot.getStartTime())
+                .deliveryEndTime(timeSlot.getEndTime())
+                .timeSlotCapacity(timeSlot.getCapacity())
+                .timeSlotReservations(timeSlot.getCurrentReservations())
+                .createdAt(this.createdAt)
+                .build());
+    }
+    
     // Setters for R2DBC
     public void setId(Long id) {
         this.id = id;
@@ -135,4 +233,12 @@ public class ReservationAggregate {
     public void setCancelledAt(LocalDateTime cancelledAt) {
         this.cancelledAt = cancelledAt;
     }
+    
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
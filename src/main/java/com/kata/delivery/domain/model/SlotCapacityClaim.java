@@ -0,0 +1,13 @@
+package com.kata.delivery.domain.model;
+
+import lombok.Value;
+
+/**
+ * Value Object describing the outcome of claiming several units of capacity at once (DDD pattern)
+ * The claim is partial when the slot had less room than requested
+ */
+@Value
+public class SlotCapacityClaim {
+    TimeSlotAggregate timeSlot;
+    int claimed;
+}
@@ -6,6 +6,7 @@ import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
 import lombok.Getter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.LocalDate;
@@ -31,6 +32,12 @@ public class TimeSlotAggregate {
     private Integer capacity;
     private Integer currentReservations;
     
+    /**
+     * Optimistic lock, also bumped by the atomic capacity updates so a stale save cannot overwrite a count
+     */
+    @Version
+    private Long version;
+    
     @Transient
     private final List<DomainEvent> domainEvents = new ArrayList<>();
     
@@ -67,15 +74,7 @@ public class TimeSlotAggregate {
         Integer previous = this.currentReservations;
         this.currentReservations++;
         
-        // Publish domain event
-        domainEvents.add(TimeSlotCapacityChangedEvent.builder()
-                .timeSlotId(this.id)
-                .deliveryMode(this.deliveryMode)
-                .previousReservations(previous)
-                .currentReservations(this.currentReservations)
-                .capacity(this.capacity)
-                .isFullyBooked(!hasAvailableCapacity())
-                .build());
+        registerCapacityChange(previous);
     }
     
     /**
@@ -86,18 +85,31 @@ public class TimeSlotAggregate {
             Integer previous = this.currentReservations;
             this.currentReservations--;
             
-            // Publish domain event
-            domainEvents.add(TimeSlotCapacityChangedEvent.builder()
-                    .timeSlotId(this.id)
-                    .deliveryMode(this.deliveryMode)
-                    .previousReservations(previous)
-                    .currentReservations(this.currentReservations)
-                    .capacity(this.capacity)
-                    .isFullyBooked(false)
-                    .build());
+            registerCapacityChange(previous);
         }
     }
     
+    /**
+     * Record a reservation that was already applied by an atomic capacity claim in the store
+     */
+    public void capacityClaimed() {
+        capacityClaimed(1);
+    }
+    
+    /**
+     * Record several reservations claimed at once, as a single capacity change
+     */
+    public void capacityClaimed(int quantity) {
+        registerCapacityChange(this.currentReservations - quantity);
+    }
+    
+    /**
+     * Record a release that was already applied by an atomic capacity release in the store
+     */
+    public void capacityReleased() {
+        registerCapacityChange(this.currentReservations + 1);
+    }
+    
     /**
      * Check if slot has available capacity
      */
@@ -114,6 +126,19 @@ public class TimeSlotAggregate {
         return events;
     }
     
+    private void registerCapacityChange(Integer previous) {
+        // Publish domain event
+        domainEvents.add(TimeSlotCapacityChangedEvent.builder()
+                .timeSlotId(this.id)
+                .deliveryMode(this.deliveryMode)
+                .date(this.date)
+                .previousReservations(previous)
+                .currentReservations(this.currentReservations)
+                .capacity(this.capacity)
+                .isFullyBooked(!hasAvailableCapacity())
+                .build());
+    }
+    
     // Setters for R2DBC
     public void setId(Long id) {
         this.id = id;
@@ -142,4 +167,8 @@ public class TimeSlotAggregate {
     public void setCurrentReservations(Integer currentReservations) {
         this.currentReservations = currentReservations;
     }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,18 @@
+package com.kata.delivery.domain.port.inbound;
+
+import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.ReservationResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Inbound port (use case) for reservation creation that clients may safely retry
+ * Part of hexagonal architecture - defines business operations
+ */
+public interface IdempotentReservationUseCase {
+    
+    /**
+     * Create a reservation once per idempotency key, replaying the first result for every retry
+     * A key sent again with a different request fails with an IdempotencyKeyReusedException.
+     */
+    Mono<ReservationResponse> createReservation(String idempotencyKey, CreateReservationCommand command);
+}
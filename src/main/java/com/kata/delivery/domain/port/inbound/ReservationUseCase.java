@@ -1,7 +1,11 @@
 package com.kata.delivery.domain.port.inbound;
 
 import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.PageResponse;
+import com.kata.delivery.application.dto.ReservationBatchResult;
+import com.kata.delivery.application.dto.ReservationExportFilter;
 import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.ReservationStatus;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -16,6 +20,26 @@ public interface ReservationUseCase {
      */
     Mono<ReservationResponse> createReservation(CreateReservationCommand command);
     
+    /**
+     * Create many reservations at once, one result per command in the same order
+     */
+    Flux<ReservationBatchResult> createReservations(Flux<CreateReservationCommand> commands);
+    
+    /**
+     * Hold capacity on a time slot for a limited time, to be confirmed or released
+     */
+    Mono<ReservationResponse> placeHold(CreateReservationCommand command);
+    
+    /**
+     * Confirm a hold before it expires
+     */
+    Mono<ReservationResponse> confirmReservation(Long id);
+    
+    /**
+     * Release the capacity of a hold whose time is up
+     */
+    Mono<Void> expireHold(Long id);
+    
     /**
      * Get reservation by ID
      */
@@ -26,11 +50,26 @@ public interface ReservationUseCase {
      */
     Flux<ReservationResponse> getAllReservations();
     
+    /**
+     * Get one page of reservations in id order, starting after the given cursor
+     */
+    Mono<PageResponse<ReservationResponse>> getReservationsPage(String after, int limit);
+    
     /**
      * Get reservations by customer email
      */
     Flux<ReservationResponse> getReservationsByCustomer(String email);
     
+    /**
+     * Get reservations in a given status, e.g. outstanding holds
+     */
+    Flux<ReservationResponse> getReservationsByStatus(ReservationStatus status);
+    
+    /**
+     * Stream every reservation matching the filter with its time slot, in no particular order
+     */
+    Flux<ReservationResponse> exportReservations(ReservationExportFilter filter);
+    
     /**
      * Cancel a reservation
      */
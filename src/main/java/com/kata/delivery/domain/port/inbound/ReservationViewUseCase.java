@@ -0,0 +1,20 @@
+package com.kata.delivery.domain.port.inbound;
+
+import com.kata.delivery.domain.event.DomainEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Inbound port (use case) maintaining the reservation read model
+ */
+public interface ReservationViewUseCase {
+    
+    /**
+     * Apply a domain event to the read model, events it does not depend on are ignored
+     */
+    Mono<Void> project(DomainEvent event);
+    
+    /**
+     * Rebuild the read model from scratch out of the reservations, returns the number of reservations
+     */
+    Mono<Long> rebuild();
+}
@@ -1,11 +1,15 @@
 package com.kata.delivery.domain.port.inbound;
 
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
+import com.kata.delivery.application.dto.PageResponse;
 import com.kata.delivery.application.dto.TimeSlotResponse;
 import com.kata.delivery.domain.DeliveryMode;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Inbound port (use case) for time slot operations
@@ -18,6 +22,11 @@ public interface TimeSlotUseCase {
      */
     Flux<TimeSlotResponse> getAllTimeSlots();
     
+    /**
+     * Get one page of time slots in id order, starting after the given cursor
+     */
+    Mono<PageResponse<TimeSlotResponse>> getTimeSlotsPage(String after, int limit);
+    
     /**
      * Get time slot by ID
      */
@@ -37,4 +46,30 @@ public interface TimeSlotUseCase {
      * Get available time slots for a delivery mode and date
      */
     Flux<TimeSlotResponse> getAvailableTimeSlots(DeliveryMode deliveryMode, LocalDate date);
+    
+    /**
+     * Get available time slots for a delivery mode from one date to another, both included, by date then start time
+     */
+    Flux<TimeSlotResponse> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to);
+    
+    /**
+     * Get the first available time slots for a delivery mode starting at or after the given time
+     */
+    Flux<TimeSlotResponse> findNextAvailable(DeliveryMode deliveryMode, LocalDateTime after, int limit);
+    
+    /**
+     * Get the availability of a delivery mode for each of the given number of days from a date
+     */
+    Mono<List<AvailabilityDayResponse>> getAvailabilityCalendar(DeliveryMode deliveryMode, LocalDate from, int days);
+    
+    /**
+     * Version of the time slots of a delivery mode, or of every mode when null, on a date
+     * Changes whenever the capacity of one of them changes, empty when the date is not versioned
+     */
+    Mono<String> getTimeSlotsVersion(DeliveryMode deliveryMode, LocalDate date);
+    
+    /**
+     * Watch time slots: their current state then every capacity change, optionally filtered by mode and date
+     */
+    Flux<TimeSlotResponse> watchTimeSlots(DeliveryMode deliveryMode, LocalDate date);
 }
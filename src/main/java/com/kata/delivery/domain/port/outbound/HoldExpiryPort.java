@@ -0,0 +1,20 @@
+package com.kata.delivery.domain.port.outbound;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbound port for expiring reservation holds
+ * Part of hexagonal architecture - domain defines the contract
+ */
+public interface HoldExpiryPort {
+    
+    /**
+     * Expire the hold at the given time unless it is cancelled first
+     */
+    void schedule(Long reservationId, LocalDateTime expiresAt);
+    
+    /**
+     * Forget the hold, it was confirmed or cancelled
+     */
+    void cancel(Long reservationId);
+}
@@ -0,0 +1,28 @@
+package com.kata.delivery.domain.port.outbound;
+
+import com.kata.delivery.domain.model.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbound port (interface) for remembering which reservation an idempotency key produced
+ * Part of hexagonal architecture - domain defines the contract
+ */
+public interface IdempotencyKeyRepositoryPort {
+    
+    /**
+     * Reservation created under the key with the fingerprint of its request, empty if the key was never used
+     */
+    Mono<IdempotencyRecord> find(String idempotencyKey);
+    
+    /**
+     * Record the key, fails with a DuplicateKeyException if it is already taken
+     */
+    Mono<Void> save(String idempotencyKey, String requestFingerprint, Long reservationId);
+    
+    /**
+     * Forget keys recorded before the given time, emits how many were removed
+     */
+    Mono<Long> deleteCreatedBefore(LocalDateTime cutoff);
+}
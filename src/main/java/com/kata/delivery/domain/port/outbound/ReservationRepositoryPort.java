@@ -1,10 +1,14 @@
 package com.kata.delivery.domain.port.outbound;
 
+import com.kata.delivery.application.dto.ReservationExportFilter;
+import com.kata.delivery.application.dto.ReservationResponse;
 import com.kata.delivery.domain.ReservationStatus;
 import com.kata.delivery.domain.model.ReservationAggregate;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Outbound port (interface) for Reservation persistence
  * Part of hexagonal architecture - domain defines the contract
@@ -13,6 +17,11 @@ public interface ReservationRepositoryPort {
     
     Mono<ReservationAggregate> save(ReservationAggregate reservation);
     
+    /**
+     * Insert new reservations with multi-row inserts, assigning their generated ids in order
+     */
+    Flux<ReservationAggregate> insertAll(List<ReservationAggregate> reservations);
+    
     Mono<ReservationAggregate> findById(Long id);
     
     Flux<ReservationAggregate> findAll();
@@ -24,4 +33,30 @@ public interface ReservationRepositoryPort {
     Flux<ReservationAggregate> findByTimeSlotId(Long timeSlotId);
     
     Mono<Void> deleteById(Long id);
+    
+    /**
+     * Read model of one reservation joined with its time slot in a single query
+     */
+    Mono<ReservationResponse> findResponseById(Long id);
+    
+    /**
+     * Read model of every reservation joined with its time slot, streamed from a single query
+     */
+    Flux<ReservationResponse> findAllResponses();
+    
+    /**
+     * Read model of the reservations with an id above afterId, in id order, seeking on the primary key
+     */
+    Flux<ReservationResponse> findResponsesAfter(long afterId, int limit);
+    
+    /**
+     * Read model of a customer's reservations joined with their time slots, streamed from a single query
+     */
+    Flux<ReservationResponse> findResponsesByCustomerEmail(String email);
+    
+    /**
+     * Read model of the reservations matching the filter in no particular order, streamed from one cursor
+     * fetching fetchSize rows at a time as they are consumed
+     */
+    Flux<ReservationResponse> streamResponses(ReservationExportFilter filter, int fetchSize);
 }
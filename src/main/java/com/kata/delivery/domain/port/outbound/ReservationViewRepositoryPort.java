@@ -0,0 +1,36 @@
+package com.kata.delivery.domain.port.outbound;
+
+import com.kata.delivery.application.dto.ReservationResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbound port for the denormalized reservation read model, reservations with their slot details embedded
+ * Updates may arrive in any order: each one is merged in rather than written over the stored row.
+ */
+public interface ReservationViewRepositoryPort {
+    
+    /**
+     * Merge what an event tells about a reservation: null fields keep their stored value, the status only
+     * moves forward (hold, confirmed, cancelled) and slot counts are only taken from a newer change
+     */
+    Mono<Void> upsert(ReservationResponse reservation, LocalDateTime occurredOn);
+    
+    /**
+     * Record the capacity of a slot on every reservation of it, unless a newer change was recorded
+     */
+    Mono<Void> updateTimeSlot(Long timeSlotId, int capacity, int currentReservations, LocalDateTime occurredOn);
+    
+    /**
+     * Replace the whole read model with the current reservations, returns the rows written
+     */
+    Mono<Long> rebuild();
+    
+    Mono<ReservationResponse> findById(Long id);
+    
+    Flux<ReservationResponse> findAll();
+    
+    Flux<ReservationResponse> findByCustomerEmail(String email);
+}
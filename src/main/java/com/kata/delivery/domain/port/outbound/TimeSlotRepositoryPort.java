@@ -1,11 +1,15 @@
 package com.kata.delivery.domain.port.outbound;
 
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
 import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.model.SlotCapacityClaim;
 import com.kata.delivery.domain.model.TimeSlotAggregate;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * Outbound port (interface) for TimeSlot persistence
@@ -17,15 +21,60 @@ public interface TimeSlotRepositoryPort {
     
     Mono<TimeSlotAggregate> findById(Long id);
     
+    /**
+     * Load many slots with one IN (...) query, in no particular order
+     */
+    Flux<TimeSlotAggregate> findAllById(Collection<Long> ids);
+    
     Flux<TimeSlotAggregate> findAll();
     
+    /**
+     * Slots with an id above afterId, in id order, seeking on the primary key
+     */
+    Flux<TimeSlotAggregate> findAllAfter(long afterId, int limit);
+    
     Flux<TimeSlotAggregate> findByDeliveryMode(DeliveryMode deliveryMode);
     
     Flux<TimeSlotAggregate> findByDate(LocalDate date);
     
+    Flux<TimeSlotAggregate> findByDateGreaterThanEqual(LocalDate date);
+    
+    Flux<TimeSlotAggregate> findByDeliveryModeAndDateBefore(DeliveryMode deliveryMode, LocalDate date);
+    
     Flux<TimeSlotAggregate> findByDeliveryModeAndDate(DeliveryMode deliveryMode, LocalDate date);
     
     Flux<TimeSlotAggregate> findAvailableSlots(DeliveryMode deliveryMode, LocalDate date);
     
+    /**
+     * Slots of a delivery mode with capacity left from one date to another, both included, by date then start time
+     */
+    Flux<TimeSlotAggregate> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to);
+    
+    /**
+     * First slots of a delivery mode with capacity left starting at or after the given time, by date then start time
+     */
+    Flux<TimeSlotAggregate> findNextAvailable(DeliveryMode deliveryMode, LocalDateTime after, int limit);
+    
+    /**
+     * Availability of a delivery mode per day from one date to another, both included, aggregated in one query
+     * Days without slots are left out
+     */
+    Flux<AvailabilityDayResponse> findAvailabilityCalendar(DeliveryMode deliveryMode, LocalDate from, LocalDate to);
+    
+    /**
+     * Atomically take one unit of capacity, emits the updated slot or empty if it is full (or unknown)
+     */
+    Mono<TimeSlotAggregate> claimCapacity(Long id);
+    
+    /**
+     * Atomically take up to quantity units of capacity, emits how many were taken or empty if the slot is unknown
+     */
+    Mono<SlotCapacityClaim> claimCapacity(Long id, int quantity);
+    
+    /**
+     * Atomically give back one unit of capacity, emits the updated slot or empty if nothing was reserved
+     */
+    Mono<TimeSlotAggregate> releaseCapacity(Long id);
+    
     Mono<Void> deleteById(Long id);
 }
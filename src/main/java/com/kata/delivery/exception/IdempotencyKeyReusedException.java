@@ -0,0 +1,11 @@
+package com.kata.delivery.exception;
+
+/**
+ * Exception thrown when an idempotency key comes back with a request other than the one it was first used for
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super(String.format("Idempotency-Key %s was already used for a different request", idempotencyKey));
+    }
+}
@@ -0,0 +1,77 @@
+package com.kata.delivery.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a Flux as one array of a binary Jackson format, each element is flushed as it is emitted
+ * The Spring binary encoders either refuse a Flux (CBOR) or wrap separately encoded documents in JSON
+ * brackets (Smile). A single generator keeps the output one valid document and lets Smile share
+ * property names across elements.
+ */
+final class BinaryArrayWriter implements AutoCloseable {
+
+    private final ByteArrayBuilder bytes = new ByteArrayBuilder();
+    private final JsonGenerator generator;
+    private final SequenceWriter sequence;
+
+    private BinaryArrayWriter(ObjectMapper mapper, ResolvableType elementType) throws IOException {
+        this.generator = mapper.getFactory().createGenerator(bytes);
+        this.sequence = mapper.writerFor(mapper.constructType(elementType.getType()))
+                .writeValuesAsArray(generator);
+    }
+
+    static Flux<DataBuffer> encode(ObjectMapper mapper, Publisher<?> input, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType) {
+        return Flux.using(
+                () -> new BinaryArrayWriter(mapper, elementType),
+                writer -> Flux.concat(
+                        Mono.fromCallable(() -> writer.drain(bufferFactory)),
+                        Flux.from(input).map(value -> writer.write(value, bufferFactory)),
+                        Mono.fromCallable(() -> writer.end(bufferFactory))),
+                BinaryArrayWriter::close);
+    }
+
+    private DataBuffer write(Object value, DataBufferFactory bufferFactory) {
+        try {
+            sequence.write(value);
+            return drain(bufferFactory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DataBuffer end(DataBufferFactory bufferFactory) throws IOException {
+        sequence.close();
+        return drain(bufferFactory);
+    }
+
+    private DataBuffer drain(DataBufferFactory bufferFactory) throws IOException {
+        // The sequence stops flushing once closed, the generator still holds the end of the array
+        generator.flush();
+        byte[] chunk = bytes.toByteArray();
+        bytes.reset();
+        return bufferFactory.wrap(chunk);
+    }
+
+    @Override
+    public void close() {
+        try {
+            sequence.close();
+            generator.close();
+        } catch (IOException e) {
+            // Only reached when the response was cancelled or failed, nothing left to write to
+        }
+    }
+}
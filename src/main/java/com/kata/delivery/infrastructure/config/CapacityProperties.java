@@ -0,0 +1,54 @@
+package com.kata.delivery.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of how time slot capacity is claimed and released
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.capacity")
+public class CapacityProperties {
+
+    /**
+     * DATABASE claims with a conditional update per reservation,
+     * LEDGER claims against in-memory counters (single instance only),
+     * SINGLE_WRITER routes claims to the one worker thread owning the slot (single instance only)
+     */
+    private Mode mode = Mode.DATABASE;
+
+    private Ledger ledger = new Ledger();
+
+    private SingleWriter singleWriter = new SingleWriter();
+
+    public enum Mode {
+        DATABASE,
+        LEDGER,
+        SINGLE_WRITER
+    }
+
+    @Data
+    public static class Ledger {
+
+        /**
+         * How often changed counters are written back to the time_slots table
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class SingleWriter {
+
+        /**
+         * Worker threads the slots are sharded over, each owning its slots exclusively
+         */
+        private int workers = 4;
+
+        /**
+         * How often each worker writes its changed slots back to the time_slots table
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,17 @@
+package com.kata.delivery.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the processing of consumed domain events
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.event-consumer")
+public class EventConsumerProperties {
+
+    /**
+     * Events processed at once, those with the same key always one after the other
+     */
+    private int workers = Runtime.getRuntime().availableProcessors();
+}
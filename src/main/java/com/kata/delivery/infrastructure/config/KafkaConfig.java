@@ -3,9 +3,15 @@ package com.kata.delivery.infrastructure.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kata.delivery.infrastructure.messaging.TimeSlotPartitioner;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -13,27 +19,33 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Kafka configuration for event-driven architecture
+ * The producer takes its servers, acks, batching, linger and compression from spring.kafka.producer,
+ * and partitions records by the time slot they are keyed with.
  */
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConfig {
 
+    public static final int EVENT_PARTITIONS = 3;
+
+    private final KafkaProperties kafkaProperties;
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+    public ProducerFactory<String, byte[]> producerFactory(ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> configProps = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, TimeSlotPartitioner.class);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 
     @Bean
@@ -46,27 +58,31 @@ public class KafkaConfig {
 
     /**
      * Create Kafka topics for domain events
+     * They all have the same number of partitions, so a time slot maps to the same partition number on each.
      */
     @Bean
     public NewTopic reservationCreatedTopic() {
-        return TopicBuilder.name("delivery.events.reservationcreated")
-                .partitions(3)
-                .replicas(1)
-                .build();
+        return eventTopic("delivery.events.reservationcreated");
+    }
+
+    @Bean
+    public NewTopic reservationHeldTopic() {
+        return eventTopic("delivery.events.reservationheld");
     }
 
     @Bean
     public NewTopic reservationCancelledTopic() {
-        return TopicBuilder.name("delivery.events.reservationcancelled")
-                .partitions(3)
-                .replicas(1)
-                .build();
+        return eventTopic("delivery.events.reservationcancelled");
     }
 
     @Bean
     public NewTopic timeSlotCapacityChangedTopic() {
-        return TopicBuilder.name("delivery.events.timeslotcapacitychanged")
-                .partitions(3)
+        return eventTopic("delivery.events.timeslotcapacitychanged");
+    }
+
+    private static NewTopic eventTopic(String name) {
+        return TopicBuilder.name(name)
+                .partitions(EVENT_PARTITIONS)
                 .replicas(1)
                 .build();
     }
@@ -0,0 +1,29 @@
+package com.kata.delivery.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the transactional outbox relay
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.outbox")
+public class OutboxProperties {
+
+    /**
+     * How often the relay looks for undelivered messages when idle
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Most messages sent to Kafka per round trip
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long delivered messages are kept before being deleted
+     */
+    private Duration retention = Duration.ofHours(1);
+}
@@ -63,13 +63,13 @@ public class ReactiveDataInitializer implements CommandLineRunner {
         timeSlots.add(createTimeSlot(DeliveryMode.DELIVERY_ASAP, today, 
                 LocalTime.now().plusHours(2), LocalTime.now().plusHours(3), 2));
         
-        // Save all time slots reactively
+        // Save all time slots reactively, waiting for them so the index and allocators load them on ready
         Flux.fromIterable(timeSlots)
                 .flatMap(timeSlotRepository::save)
                 .doOnNext(ts -> log.debug("Saved time slot: {} for {} on {}", 
                         ts.getId(), ts.getDeliveryMode(), ts.getDate()))
                 .doOnComplete(() -> log.info("✅ Successfully initialized {} time slots", timeSlots.size()))
-                .subscribe();
+                .blockLast();
     }
     
     private TimeSlotAggregate createTimeSlot(DeliveryMode mode, LocalDate date, 
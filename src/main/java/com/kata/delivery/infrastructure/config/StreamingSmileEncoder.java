@@ -0,0 +1,35 @@
+package com.kata.delivery.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Smile encoder writing a Flux as a single Smile array streamed element by element
+ * The streaming media type keeps the Spring behaviour of one document per element.
+ */
+class StreamingSmileEncoder extends Jackson2SmileEncoder {
+
+    StreamingSmileEncoder(ObjectMapper mapper, MimeType... mimeTypes) {
+        super(mapper, mimeTypes);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType,
+                                   Map<String, Object> hints) {
+        boolean streaming = getStreamingMediaTypes().stream().anyMatch(type -> type.equalsTypeAndSubtype(mimeType));
+        if (inputStream instanceof Mono<?> || streaming) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        return BinaryArrayWriter.encode(getObjectMapper(), inputStream, bufferFactory, elementType);
+    }
+}
@@ -0,0 +1,47 @@
+package com.kata.delivery.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * WebFlux codec configuration for the binary representations of the REST API
+ * CBOR and Smile are negotiated through Accept and Content-Type, their mappers are copies of the
+ * application ObjectMapper so every format shares the same modules and features.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebCodecConfig implements WebFluxConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            MimeType.valueOf(APPLICATION_SMILE_VALUE), MimeType.valueOf("application/stream+x-jackson-smile")
+    };
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // Without explicit types the Smile codecs are registered for the JSON ones
+        ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory());
+        configurer.defaultCodecs().jackson2SmileEncoder(new StreamingSmileEncoder(smileMapper, SMILE_MIME_TYPES));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+
+        // Custom writers come before the default ones, JSON is registered again ahead of CBOR so that
+        // it stays the representation of responses to Accept */*, error responses included
+        configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+        ObjectMapper cborMapper = objectMapper.copyWith(new CBORFactory());
+        configurer.customCodecs().register(new StreamingCborEncoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+    }
+}
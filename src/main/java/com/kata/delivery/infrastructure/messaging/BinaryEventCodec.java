@@ -0,0 +1,342 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.DomainEvent;
+import com.kata.delivery.domain.event.ReservationCancelledEvent;
+import com.kata.delivery.domain.event.ReservationCreatedEvent;
+import com.kata.delivery.domain.event.ReservationHeldEvent;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary encoding of the domain events sent to Kafka
+ * A payload starts with a marker byte, the event type and the schema version it was written with, then a
+ * bitmap of the fields present followed by those fields: varints for numbers, two longs for ids, epoch day
+ * and second of day for dates and times, length-prefixed UTF-8 for text.
+ * Fields are only ever appended, under a new version, so a reader stops before the fields of a newer writer
+ * and leaves the ones an older writer did not have null. Payloads starting with '{' are JSON from before
+ * the codec and are still read with Jackson.
+ */
+@Component
+@RequiredArgsConstructor
+public class BinaryEventCodec {
+
+    static final byte MARKER = (byte) 0xB1;
+
+    private static final Map<Class<?>, Schema<?>> SCHEMAS_BY_CLASS = new HashMap<>();
+    private static final Map<Integer, Schema<?>> SCHEMAS_BY_TYPE = new HashMap<>();
+
+    static {
+        register(new Schema<>(1, 1, ReservationCreatedEvent.class, ReservationCreatedEvent::new)
+                .field(Value.UUID, ReservationCreatedEvent::getEventId, ReservationCreatedEvent::setEventId)
+                .field(Value.DATE_TIME, ReservationCreatedEvent::getOccurredOn, ReservationCreatedEvent::setOccurredOn)
+                .field(Value.LONG, ReservationCreatedEvent::getReservationId, ReservationCreatedEvent::setReservationId)
+                .field(Value.STRING, ReservationCreatedEvent::getCustomerName, ReservationCreatedEvent::setCustomerName)
+                .field(Value.STRING, ReservationCreatedEvent::getCustomerEmail, ReservationCreatedEvent::setCustomerEmail)
+                .field(Value.LONG, ReservationCreatedEvent::getTimeSlotId, ReservationCreatedEvent::setTimeSlotId)
+                .field(Value.DELIVERY_MODE, ReservationCreatedEvent::getDeliveryMode, ReservationCreatedEvent::setDeliveryMode)
+                .field(Value.DATE, ReservationCreatedEvent::getDeliveryDate, ReservationCreatedEvent::setDeliveryDate)
+                .field(Value.TIME, ReservationCreatedEvent::getDeliveryStartTime, ReservationCreatedEvent::setDeliveryStartTime)
+                .field(Value.TIME, ReservationCreatedEvent::getDeliveryEndTime, ReservationCreatedEvent::setDeliveryEndTime)
+                .field(Value.INT, ReservationCreatedEvent::getTimeSlotCapacity, ReservationCreatedEvent::setTimeSlotCapacity)
+                .field(Value.INT, ReservationCreatedEvent::getTimeSlotReservations, ReservationCreatedEvent::setTimeSlotReservations)
+                .field(Value.DATE_TIME, ReservationCreatedEvent::getCreatedAt, ReservationCreatedEvent::setCreatedAt));
+
+        register(new Schema<>(2, 1, ReservationHeldEvent.class, ReservationHeldEvent::new)
+                .field(Value.UUID, ReservationHeldEvent::getEventId, ReservationHeldEvent::setEventId)
+                .field(Value.DATE_TIME, ReservationHeldEvent::getOccurredOn, ReservationHeldEvent::setOccurredOn)
+                .field(Value.LONG, ReservationHeldEvent::getReservationId, ReservationHeldEvent::setReservationId)
+                .field(Value.STRING, ReservationHeldEvent::getCustomerName, ReservationHeldEvent::setCustomerName)
+                .field(Value.STRING, ReservationHeldEvent::getCustomerEmail, ReservationHeldEvent::setCustomerEmail)
+                .field(Value.LONG, ReservationHeldEvent::getTimeSlotId, ReservationHeldEvent::setTimeSlotId)
+                .field(Value.DELIVERY_MODE, ReservationHeldEvent::getDeliveryMode, ReservationHeldEvent::setDeliveryMode)
+                .field(Value.DATE, ReservationHeldEvent::getDeliveryDate, ReservationHeldEvent::setDeliveryDate)
+                .field(Value.TIME, ReservationHeldEvent::getDeliveryStartTime, ReservationHeldEvent::setDeliveryStartTime)
+                .field(Value.TIME, ReservationHeldEvent::getDeliveryEndTime, ReservationHeldEvent::setDeliveryEndTime)
+                .field(Value.INT, ReservationHeldEvent::getTimeSlotCapacity, ReservationHeldEvent::setTimeSlotCapacity)
+                .field(Value.INT, ReservationHeldEvent::getTimeSlotReservations, ReservationHeldEvent::setTimeSlotReservations)
+                .field(Value.DATE_TIME, ReservationHeldEvent::getCreatedAt, ReservationHeldEvent::setCreatedAt)
+                .field(Value.DATE_TIME, ReservationHeldEvent::getHoldExpiresAt, ReservationHeldEvent::setHoldExpiresAt));
+
+        register(new Schema<>(3, 1, ReservationCancelledEvent.class, ReservationCancelledEvent::new)
+                .field(Value.UUID, ReservationCancelledEvent::getEventId, ReservationCancelledEvent::setEventId)
+                .field(Value.DATE_TIME, ReservationCancelledEvent::getOccurredOn, ReservationCancelledEvent::setOccurredOn)
+                .field(Value.LONG, ReservationCancelledEvent::getReservationId, ReservationCancelledEvent::setReservationId)
+                .field(Value.STRING, ReservationCancelledEvent::getCustomerEmail, ReservationCancelledEvent::setCustomerEmail)
+                .field(Value.LONG, ReservationCancelledEvent::getTimeSlotId, ReservationCancelledEvent::setTimeSlotId)
+                .field(Value.STRING, ReservationCancelledEvent::getCancellationReason, ReservationCancelledEvent::setCancellationReason));
+
+        register(new Schema<>(4, 1, TimeSlotCapacityChangedEvent.class, TimeSlotCapacityChangedEvent::new)
+                .field(Value.UUID, TimeSlotCapacityChangedEvent::getEventId, TimeSlotCapacityChangedEvent::setEventId)
+                .field(Value.DATE_TIME, TimeSlotCapacityChangedEvent::getOccurredOn, TimeSlotCapacityChangedEvent::setOccurredOn)
+                .field(Value.LONG, TimeSlotCapacityChangedEvent::getTimeSlotId, TimeSlotCapacityChangedEvent::setTimeSlotId)
+                .field(Value.DELIVERY_MODE, TimeSlotCapacityChangedEvent::getDeliveryMode, TimeSlotCapacityChangedEvent::setDeliveryMode)
+                .field(Value.DATE, TimeSlotCapacityChangedEvent::getDate, TimeSlotCapacityChangedEvent::setDate)
+                .field(Value.INT, TimeSlotCapacityChangedEvent::getPreviousReservations, TimeSlotCapacityChangedEvent::setPreviousReservations)
+                .field(Value.INT, TimeSlotCapacityChangedEvent::getCurrentReservations, TimeSlotCapacityChangedEvent::setCurrentReservations)
+                .field(Value.INT, TimeSlotCapacityChangedEvent::getCapacity, TimeSlotCapacityChangedEvent::setCapacity)
+                .field(Value.BOOLEAN, TimeSlotCapacityChangedEvent::getIsFullyBooked, TimeSlotCapacityChangedEvent::setIsFullyBooked));
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public byte[] encode(DomainEvent event) {
+        return schemaOf(event.getClass()).encode(event);
+    }
+
+    public <T extends DomainEvent> T decode(byte[] payload, Class<T> type) throws IOException {
+        if (payload.length > 0 && payload[0] == '{') {
+            // JSON events also carry their derived eventType, which has no setter
+            return objectMapper.readerFor(type)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(payload);
+        }
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        if (payload.length < 3 || in.get() != MARKER) {
+            throw new IOException("Not an event payload");
+        }
+        Schema<?> schema = SCHEMAS_BY_TYPE.get(Byte.toUnsignedInt(in.get()));
+        if (schema == null || schema.eventClass != type) {
+            throw new IOException("Payload does not hold a " + type.getSimpleName());
+        }
+        return type.cast(schema.decode(in));
+    }
+
+    private static void register(Schema<?> schema) {
+        SCHEMAS_BY_CLASS.put(schema.eventClass, schema);
+        SCHEMAS_BY_TYPE.put(schema.type, schema);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DomainEvent> Schema<T> schemaOf(Class<T> eventClass) {
+        Schema<T> schema = (Schema<T>) SCHEMAS_BY_CLASS.get(eventClass);
+        if (schema == null) {
+            throw new IllegalArgumentException("No binary schema for " + eventClass.getSimpleName());
+        }
+        return schema;
+    }
+
+    /**
+     * Fields of one event type in wire order, bump the version when appending one
+     */
+    private static final class Schema<T extends DomainEvent> {
+
+        private final int type;
+        private final int version;
+        private final Class<T> eventClass;
+        private final Supplier<T> factory;
+        private final List<Field<T, ?>> fields = new ArrayList<>();
+
+        private Schema(int type, int version, Class<T> eventClass, Supplier<T> factory) {
+            this.type = type;
+            this.version = version;
+            this.eventClass = eventClass;
+            this.factory = factory;
+        }
+
+        private <V> Schema<T> field(Value<V> value, Function<T, V> getter, BiConsumer<T, V> setter) {
+            fields.add(new Field<>(value, getter, setter));
+            return this;
+        }
+
+        private byte[] encode(Object event) {
+            T typed = eventClass.cast(event);
+            long present = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).getter.apply(typed) != null) {
+                    present |= 1L << i;
+                }
+            }
+            Output out = new Output();
+            out.write(MARKER);
+            out.write(type);
+            out.write(version);
+            out.writeVarLong(present);
+            for (int i = 0; i < fields.size(); i++) {
+                if ((present & 1L << i) != 0) {
+                    fields.get(i).write(out, typed);
+                }
+            }
+            return out.toByteArray();
+        }
+
+        private T decode(ByteBuffer in) {
+            // Any version reads the same way, a newer writer's extra fields are left unread at the end
+            in.get();
+            long present = readVarLong(in);
+            T event = factory.get();
+            for (int i = 0; i < fields.size(); i++) {
+                fields.get(i).read(in, event, (present & 1L << i) != 0);
+            }
+            return event;
+        }
+    }
+
+    private record Field<T, V>(Value<V> value, Function<T, V> getter, BiConsumer<T, V> setter) {
+
+        private void write(Output out, T event) {
+            value.write(out, getter.apply(event));
+        }
+
+        /**
+         * Absent fields are set to null over the defaults a new event starts with, such as a fresh event id
+         */
+        private void read(ByteBuffer in, T event, boolean present) {
+            setter.accept(event, present ? value.read(in) : null);
+        }
+    }
+
+    /**
+     * Wire form of one field type
+     */
+    private interface Value<V> {
+
+        Value<Long> LONG = of((out, v) -> out.writeVarLong(zigZag(v)), in -> unZigZag(readVarLong(in)));
+        Value<Integer> INT = of((out, v) -> out.writeVarLong(zigZag(v)), in -> (int) unZigZag(readVarLong(in)));
+        Value<Boolean> BOOLEAN = of((out, v) -> out.write(v ? 1 : 0), in -> in.get() != 0);
+        Value<String> STRING = of(Output::writeString, BinaryEventCodec::readString);
+        Value<DeliveryMode> DELIVERY_MODE = of((out, v) -> out.writeString(v.name()), in -> DeliveryMode.valueOf(readString(in)));
+        Value<UUID> UUID = of((out, v) -> {
+            out.writeLong(v.getMostSignificantBits());
+            out.writeLong(v.getLeastSignificantBits());
+        }, in -> new java.util.UUID(in.getLong(), in.getLong()));
+        Value<LocalDate> DATE = of((out, v) -> out.writeVarLong(zigZag(v.toEpochDay())),
+                in -> LocalDate.ofEpochDay(unZigZag(readVarLong(in))));
+        Value<LocalTime> TIME = of(Output::writeTime, BinaryEventCodec::readTime);
+        Value<LocalDateTime> DATE_TIME = of((out, v) -> {
+            DATE.write(out, v.toLocalDate());
+            TIME.write(out, v.toLocalTime());
+        }, in -> LocalDateTime.of(DATE.read(in), TIME.read(in)));
+
+        void write(Output out, V value);
+
+        V read(ByteBuffer in);
+
+        private static <V> Value<V> of(BiConsumer<Output, V> writer, Function<ByteBuffer, V> reader) {
+            return new Value<>() {
+                @Override
+                public void write(Output out, V value) {
+                    writer.accept(out, value);
+                }
+
+                @Override
+                public V read(ByteBuffer in) {
+                    return reader.apply(in);
+                }
+            };
+        }
+    }
+
+    /**
+     * Growable buffer, unlike ByteArrayOutputStream it takes no lock per byte
+     */
+    private static final class Output {
+
+        private byte[] buffer = new byte[96];
+        private int size;
+
+        private void write(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        private void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes);
+        }
+
+        /**
+         * Second of day shifted left by one, the low bit telling whether nanoseconds follow
+         */
+        private void writeTime(LocalTime value) {
+            int nanos = value.getNano();
+            writeVarLong((long) value.toSecondOfDay() << 1 | (nanos != 0 ? 1 : 0));
+            if (nanos != 0) {
+                writeVarLong(nanos);
+            }
+        }
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Math.toIntExact(readVarLong(in));
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static LocalTime readTime(ByteBuffer in) {
+        long packed = readVarLong(in);
+        int nanos = (packed & 1) != 0 ? Math.toIntExact(readVarLong(in)) : 0;
+        return LocalTime.ofSecondOfDay(packed >>> 1).withNano(nanos);
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
@@ -1,14 +1,22 @@
 package com.kata.delivery.infrastructure.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kata.delivery.application.service.AvailableTimeSlotCache;
+import com.kata.delivery.application.service.TimeSlotAvailabilityIndex;
+import com.kata.delivery.domain.port.inbound.ReservationViewUseCase;
+import com.kata.delivery.domain.event.DomainEvent;
 import com.kata.delivery.domain.event.ReservationCancelledEvent;
 import com.kata.delivery.domain.event.ReservationCreatedEvent;
+import com.kata.delivery.domain.event.ReservationHeldEvent;
 import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Kafka event consumer listening to domain events
  * Demonstrates event-driven architecture with event handlers
@@ -18,79 +26,150 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class KafkaEventConsumer {
 
-    private final ObjectMapper objectMapper;
+    private final BinaryEventCodec eventCodec;
+    private final AvailableTimeSlotCache availableTimeSlotCache;
+    private final TimeSlotAvailabilityIndex availabilityIndex;
+    private final ReservationViewUseCase reservationView;
+    private final KeyOrderedDispatcher dispatcher;
+
+    /**
+     * Handle the domain events of the time slots this instance owns, a polled batch at a time
+     * One consumer reads every event topic and the range assignor gives it the same partitions of each,
+     * so all the events of a time slot reach the same instance. The batch is spread over the dispatcher's
+     * workers by key, events of one time slot still run in the order they were published, and the offsets
+     * are committed once the whole batch is handled. A failing event fails the batch at its index, the
+     * container then commits the events before it and retries from it.
+     */
+    @KafkaListener(topics = {"delivery.events.reservationcreated", "delivery.events.reservationheld",
+                             "delivery.events.reservationcancelled", "delivery.events.timeslotcapacitychanged"},
+                   groupId = "delivery-service",
+                   batch = "true",
+                   properties = "partition.assignment.strategy=org.apache.kafka.clients.consumer.RangeAssignor")
+    public void handle(List<ConsumerRecord<String, byte[]>> records) {
+        dispatcher.dispatch(records, this::handle);
+    }
+
+    private void handle(ConsumerRecord<String, byte[]> record) {
+        switch (record.topic()) {
+            case "delivery.events.reservationcreated" -> handleReservationCreated(record.value());
+            case "delivery.events.reservationheld" -> handleReservationHeld(record.value());
+            case "delivery.events.reservationcancelled" -> handleReservationCancelled(record.value());
+            case "delivery.events.timeslotcapacitychanged" -> handleTimeSlotCapacityChanged(record.value());
+            default -> log.warn("Ignoring record from unexpected topic {}", record.topic());
+        }
+    }
 
     /**
      * Handle ReservationCreated events
      * This could trigger notifications, analytics, etc.
      */
-    @KafkaListener(topics = "delivery.events.reservationcreated", groupId = "delivery-service")
-    public void handleReservationCreated(String eventJson) {
-        try {
-            ReservationCreatedEvent event = objectMapper.readValue(eventJson, ReservationCreatedEvent.class);
-            log.info("📧 Event received: Reservation created for customer: {} on {} at {}", 
-                    event.getCustomerEmail(), 
-                    event.getDeliveryDate(), 
-                    event.getDeliveryStartTime());
-            
-            // Here you could:
-            // - Send confirmation email
-            // - Update analytics
-            // - Trigger external systems
-            // - Create audit logs
-            
-        } catch (Exception e) {
-            log.error("Error handling ReservationCreated event", e);
+    public void handleReservationCreated(byte[] payload) {
+        ReservationCreatedEvent event = decode(payload, ReservationCreatedEvent.class);
+        if (event == null) {
+            return;
         }
+        log.info("📧 Event received: Reservation created for customer: {} on {} at {}", 
+                event.getCustomerEmail(), 
+                event.getDeliveryDate(), 
+                event.getDeliveryStartTime());
+        reservationView.project(event).block();
+        
+        // Here you could:
+        // - Send confirmation email
+        // - Update analytics
+        // - Trigger external systems
+        // - Create audit logs
+    }
+
+    /**
+     * Handle ReservationHeld events
+     */
+    public void handleReservationHeld(byte[] payload) {
+        ReservationHeldEvent event = decode(payload, ReservationHeldEvent.class);
+        if (event == null) {
+            return;
+        }
+        log.info("⏳ Event received: Reservation {} held for customer: {} until {}", 
+                event.getReservationId(), 
+                event.getCustomerEmail(), 
+                event.getHoldExpiresAt());
+        reservationView.project(event).block();
     }
 
     /**
      * Handle ReservationCancelled events
      */
-    @KafkaListener(topics = "delivery.events.reservationcancelled", groupId = "delivery-service")
-    public void handleReservationCancelled(String eventJson) {
-        try {
-            ReservationCancelledEvent event = objectMapper.readValue(eventJson, ReservationCancelledEvent.class);
-            log.info("❌ Event received: Reservation {} cancelled for customer: {}", 
-                    event.getReservationId(), 
-                    event.getCustomerEmail());
-            
-            // Here you could:
-            // - Send cancellation confirmation
-            // - Update customer profile
-            // - Trigger refund process
-            
-        } catch (Exception e) {
-            log.error("Error handling ReservationCancelled event", e);
+    public void handleReservationCancelled(byte[] payload) {
+        ReservationCancelledEvent event = decode(payload, ReservationCancelledEvent.class);
+        if (event == null) {
+            return;
         }
+        log.info("❌ Event received: Reservation {} cancelled for customer: {}", 
+                event.getReservationId(), 
+                event.getCustomerEmail());
+        reservationView.project(event).block();
+        
+        // Here you could:
+        // - Send cancellation confirmation
+        // - Update customer profile
+        // - Trigger refund process
     }
 
     /**
      * Handle TimeSlotCapacityChanged events
      */
-    @KafkaListener(topics = "delivery.events.timeslotcapacitychanged", groupId = "delivery-service")
-    public void handleTimeSlotCapacityChanged(String eventJson) {
-        try {
-            TimeSlotCapacityChangedEvent event = objectMapper.readValue(eventJson, TimeSlotCapacityChangedEvent.class);
+    public void handleTimeSlotCapacityChanged(byte[] payload) {
+        TimeSlotCapacityChangedEvent event = decode(payload, TimeSlotCapacityChangedEvent.class);
+        if (event == null) {
+            return;
+        }
+        reservationView.project(event).block();
+        
+        if (Boolean.TRUE.equals(event.getIsFullyBooked())) {
+            log.warn("⚠️ Event received: TimeSlot {} for {} is now fully booked", 
+                    event.getTimeSlotId(), 
+                    event.getDeliveryMode());
             
-            if (Boolean.TRUE.equals(event.getIsFullyBooked())) {
-                log.warn("⚠️ Event received: TimeSlot {} for {} is now fully booked", 
-                        event.getTimeSlotId(), 
-                        event.getDeliveryMode());
-                
-                // Here you could:
-                // - Trigger alerts
-                // - Update cache
-                // - Notify admin dashboard
-            } else {
-                log.info("✅ Event received: TimeSlot {} capacity changed: {}/{}", 
-                        event.getTimeSlotId(), 
-                        event.getCurrentReservations(), 
-                        event.getCapacity());
+            // Here you could:
+            // - Trigger alerts
+            // - Update cache
+            // - Notify admin dashboard
+        } else {
+            log.info("✅ Event received: TimeSlot {} capacity changed: {}/{}", 
+                    event.getTimeSlotId(), 
+                    event.getCurrentReservations(), 
+                    event.getCapacity());
+        }
+    }
+
+    /**
+     * Bring cached availability up to date after a capacity change, including changes made by other instances
+     * Every instance has its own consumer group so each one sees every change, starting from the latest.
+     */
+    @KafkaListener(topics = "delivery.events.timeslotcapacitychanged",
+                   groupId = "delivery-availability-cache-${random.uuid}",
+                   batch = "true",
+                   properties = "auto.offset.reset=latest")
+    public void invalidateAvailability(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            TimeSlotCapacityChangedEvent event = decode(record.value(), TimeSlotCapacityChangedEvent.class);
+            if (event != null) {
+                availableTimeSlotCache.invalidate(event);
+                availabilityIndex.refresh(event.getTimeSlotId());
             }
-            
-        } catch (Exception e) {
-            log.error("Error handling TimeSlotCapacityChanged event", e);
+        }
+    }
+
+    /**
+     * Decode a payload, null for a poison record that no retry would ever read
+     * Only decoding is skipped this way, a failing handler throws so its record is not committed.
+     */
+    private <T extends DomainEvent> T decode(byte[] payload, Class<T> type) {
+        try {
+            return eventCodec.decode(payload, type);
+        } catch (IOException e) {
+            log.error("Skipping {} payload that cannot be decoded", type.getSimpleName(), e);
+            return null;
         }
     }
 }
@@ -1,42 +1,47 @@
 package com.kata.delivery.infrastructure.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kata.delivery.domain.event.DomainEvent;
-import com.kata.delivery.domain.port.outbound.EventPublisherPort;
+import com.kata.delivery.infrastructure.persistence.OutboxMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
 
 /**
- * Kafka adapter implementing EventPublisherPort
- * Publishes domain events to Kafka topics
+ * Kafka adapter sending outbox messages to their topics
+ * Completes once the broker acknowledged the records, so a failed send reaches the caller.
+ * A send may block on topic metadata or a full producer buffer, so it never runs on the caller's
+ * thread, and the caller resumes off the producer's I/O thread.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class KafkaEventPublisher implements EventPublisherPort {
+public class KafkaEventPublisher {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
-    
-    private static final String TOPIC_PREFIX = "delivery.events.";
+    /**
+     * Hand every message to the producer before waiting, so it can fill its own record batches
+     * The messages are sent from one worker thread and the caller resumes once all of them are acknowledged.
+     */
+    public Mono<Void> publishAll(List<OutboxMessage> messages) {
+        return Flux.fromIterable(messages)
+                .flatMap(this::send, Math.max(messages.size(), 1))
+                .then()
+                .subscribeOn(Schedulers.boundedElastic())
+                .publishOn(Schedulers.parallel());
+    }
 
-    @Override
-    public Mono<Void> publish(DomainEvent event) {
-        return Mono.fromRunnable(() -> {
-            try {
-                String topic = TOPIC_PREFIX + event.getEventType().toLowerCase();
-                String eventJson = objectMapper.writeValueAsString(event);
-                
-                kafkaTemplate.send(topic, event.getEventId().toString(), eventJson);
-                
-                log.info("Published event: {} to topic: {}", event.getEventType(), topic);
-            } catch (Exception e) {
-                log.error("Error publishing event: {}", event.getEventType(), e);
-                throw new RuntimeException("Failed to publish event", e);
-            }
-        });
+    private Mono<SendResult<String, byte[]>> send(OutboxMessage message) {
+        return Mono.fromFuture(() -> kafkaTemplate.send(
+                        message.getTopic(), message.getMessageKey(), message.getPayload()))
+                .doOnSuccess(result -> log.debug("Published event: {} to topic: {}", 
+                        message.getEventType(), message.getTopic()))
+                .doOnError(e -> log.error("Error publishing event: {}", message.getEventType(), e));
     }
 }
@@ -0,0 +1,94 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.kata.delivery.infrastructure.config.EventConsumerProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the records of a consumed batch on a pool of workers, in order per key and in parallel across keys
+ * Records are split into as many lanes as there are workers by key, a lane runs its records one after the
+ * other and the call returns once every lane is done, so the batch is committed only after all of it ran.
+ * Records without a key share one lane per partition, so they keep their order among themselves but not
+ * against the keyed records of that partition. A failure is reported with the index of the failing record
+ * so the container commits what was handled and retries the batch from it.
+ */
+@Component
+public class KeyOrderedDispatcher {
+
+    private final int workers;
+    private final Scheduler scheduler;
+
+    public KeyOrderedDispatcher(EventConsumerProperties properties) {
+        this.workers = properties.getWorkers();
+        // Handlers may block on the database, so the workers are allowed to
+        this.scheduler = Schedulers.newBoundedElastic(workers, Integer.MAX_VALUE, "event-worker");
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Handle every record, throwing a BatchListenerFailedException with the index of the first record that failed
+     * A failing lane stops at its record while the others run to their end, so every record before the
+     * lowest failing index was handled and the batch is retried from there.
+     */
+    public <K, V> void dispatch(List<ConsumerRecord<K, V>> records, Consumer<ConsumerRecord<K, V>> handler) {
+        if (workers == 1 || records.size() == 1) {
+            BatchListenerFailedException failure = run(IntStream.range(0, records.size()).boxed().toList(),
+                    records, handler);
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+        List<List<Integer>> lanes = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int index = 0; index < records.size(); index++) {
+            lanes.get(laneOf(records.get(index))).add(index);
+        }
+        Flux.fromIterable(lanes)
+                .filter(lane -> !lane.isEmpty())
+                .flatMap(lane -> Mono.fromCallable(() -> run(lane, records, handler)).subscribeOn(scheduler), workers)
+                .reduce((first, other) -> first.getIndex() <= other.getIndex() ? first : other)
+                .blockOptional()
+                .ifPresent(failure -> {
+                    throw failure;
+                });
+    }
+
+    /**
+     * Handle the records at the given indexes in order, the failure of the first one that throws or null
+     */
+    private static <K, V> BatchListenerFailedException run(List<Integer> lane, List<ConsumerRecord<K, V>> records,
+                                                           Consumer<ConsumerRecord<K, V>> handler) {
+        for (int index : lane) {
+            try {
+                handler.accept(records.get(index));
+            } catch (RuntimeException e) {
+                return new BatchListenerFailedException("Handling record " + index + " of the batch failed", e, index);
+            }
+        }
+        return null;
+    }
+
+    private int laneOf(ConsumerRecord<?, ?> record) {
+        Object key = record.key();
+        int hash = key != null ? key.hashCode() : 31 * record.topic().hashCode() + record.partition();
+        return Math.floorMod(hash, workers);
+    }
+}
@@ -0,0 +1,66 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.kata.delivery.domain.event.DomainEvent;
+import com.kata.delivery.domain.event.TimeSlotEvent;
+import com.kata.delivery.domain.port.outbound.EventPublisherPort;
+import com.kata.delivery.infrastructure.persistence.OutboxMessage;
+import com.kata.delivery.infrastructure.persistence.R2dbcOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox adapter implementing EventPublisherPort
+ * Stores domain events in the outbox table within the caller's transaction,
+ * OutboxRelay takes them to Kafka once committed.
+ * Events are also published in-process, transactional listeners see them after the commit
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxEventPublisher implements EventPublisherPort {
+
+    private final R2dbcOutboxRepository outboxRepository;
+    private final BinaryEventCodec eventCodec;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    
+    private static final String TOPIC_PREFIX = "delivery.events.";
+
+    @Override
+    public Mono<Void> publish(DomainEvent event) {
+        return Mono.fromCallable(() -> OutboxMessage.builder()
+                        .eventId(event.getEventId().toString())
+                        .eventType(event.getEventType())
+                        .topic(TOPIC_PREFIX + event.getEventType().toLowerCase())
+                        .messageKey(keyOf(event))
+                        .payload(eventCodec.encode(event))
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .flatMap(outboxRepository::save)
+                .doOnNext(message -> log.debug("Stored event: {} in outbox as message {}", 
+                        event.getEventType(), message.getId()))
+                .then(publishLocally(event));
+    }
+
+    /**
+     * Events of one time slot share a key, so they stay in order on the same partition of every topic
+     */
+    private static String keyOf(DomainEvent event) {
+        if (event instanceof TimeSlotEvent slotEvent && slotEvent.getTimeSlotId() != null) {
+            return slotEvent.getTimeSlotId().toString();
+        }
+        return event.getEventId().toString();
+    }
+
+    private Mono<Void> publishLocally(DomainEvent event) {
+        return new TransactionalEventPublisher(applicationEventPublisher).publishEvent(event)
+                .onErrorResume(NoTransactionException.class,
+                        e -> Mono.fromRunnable(() -> applicationEventPublisher.publishEvent(event)));
+    }
+}
@@ -0,0 +1,87 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.kata.delivery.infrastructure.config.OutboxProperties;
+import com.kata.delivery.infrastructure.persistence.OutboxMessage;
+import com.kata.delivery.infrastructure.persistence.R2dbcOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Relays committed outbox messages to Kafka in batches (transactional outbox pattern)
+ * A batch is marked delivered only after every record in it was acknowledged, so delivery is
+ * at-least-once: after a failure the whole batch is sent again and consumers must tolerate duplicates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final R2dbcOutboxRepository outboxRepository;
+    private final KafkaEventPublisher kafkaEventPublisher;
+    private final OutboxProperties properties;
+
+    private Disposable relay;
+    private Disposable cleanup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relay = Flux.interval(properties.getPollInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> relayPending()
+                        .onErrorResume(e -> {
+                            log.error("Outbox relay failed, will retry", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+        
+        cleanup = Flux.interval(properties.getRetention())
+                .onBackpressureDrop()
+                .concatMap(tick -> outboxRepository.deleteDeliveredBefore(
+                                LocalDateTime.now().minus(properties.getRetention()))
+                        .doOnNext(deleted -> log.debug("Deleted {} delivered outbox messages", deleted))
+                        .onErrorResume(e -> {
+                            log.error("Outbox cleanup failed", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (relay != null) {
+            relay.dispose();
+        }
+        if (cleanup != null) {
+            cleanup.dispose();
+        }
+    }
+
+    /**
+     * Relay batches back to back until the outbox is drained
+     */
+    Mono<Void> relayPending() {
+        return relayBatch()
+                .expand(relayed -> relayed == properties.getBatchSize() ? relayBatch() : Mono.empty())
+                .then();
+    }
+
+    private Mono<Integer> relayBatch() {
+        return outboxRepository.findPending(properties.getBatchSize())
+                .collectList()
+                .filter(batch -> !batch.isEmpty())
+                .flatMap(batch -> kafkaEventPublisher.publishAll(batch)
+                        .then(outboxRepository.markDelivered(
+                                batch.stream().map(OutboxMessage::getId).toList(), LocalDateTime.now()))
+                        .doOnNext(delivered -> log.debug("Relayed {} outbox messages", delivered))
+                        .thenReturn(batch.size()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Kafka partitioner sending the records of a time slot to the same partition number on every event topic
+ * Records are keyed by time slot id, consecutive ids go to consecutive partitions. Any other key is
+ * hashed the way Kafka's default partitioner does, so with event topics of equal partition counts a
+ * consumer owning a partition number sees every event of the slots mapped to it.
+ */
+public class TimeSlotPartitioner implements Partitioner {
+
+    public static int partitionOf(long timeSlotId, int partitions) {
+        return (int) Math.floorMod(timeSlotId, (long) partitions);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionCountForTopic(topic);
+        if (keyBytes == null) {
+            return ThreadLocalRandom.current().nextInt(partitions);
+        }
+        Long timeSlotId = key instanceof String text ? parseTimeSlotId(text) : null;
+        if (timeSlotId != null) {
+            return partitionOf(timeSlotId, partitions);
+        }
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % partitions;
+    }
+
+    private static Long parseTimeSlotId(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        return key.isEmpty() || key.length() > 18 ? null : Long.parseLong(key);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,49 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.model.SlotCapacityClaim;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process owner of slot capacity, replacing the conditional updates on time_slots
+ * Implementations keep the counts in memory, write them back in batches and rebuild them
+ * from the reservations table on startup. Only valid when a single instance serves reservations.
+ */
+public interface CapacityAllocator {
+
+    /**
+     * Take one unit of capacity, emits the slot as it is after the claim or empty if it is full (or unknown)
+     */
+    default Mono<TimeSlotAggregate> claim(Long timeSlotId) {
+        return claim(timeSlotId, 1)
+                .filter(claim -> claim.getClaimed() > 0)
+                .map(SlotCapacityClaim::getTimeSlot);
+    }
+
+    /**
+     * Take up to quantity units of capacity, emits how many were taken or empty if the slot is unknown
+     */
+    Mono<SlotCapacityClaim> claim(Long timeSlotId, int quantity);
+
+    /**
+     * Give back one unit of capacity, emits the slot as it is after the release or empty if nothing was reserved
+     */
+    default Mono<TimeSlotAggregate> release(Long timeSlotId) {
+        return release(timeSlotId, 1);
+    }
+
+    /**
+     * Give back up to quantity units of capacity, emits the slot as it is after the release or empty if nothing was reserved
+     */
+    Mono<TimeSlotAggregate> release(Long timeSlotId, int quantity);
+
+    /**
+     * The slot with its current in-memory count, empty if this allocator has not loaded it
+     */
+    Mono<TimeSlotAggregate> find(Long timeSlotId);
+
+    /**
+     * Pick up slot details written through the repository, keeping the allocator's own count
+     */
+    void refresh(TimeSlotAggregate timeSlot);
+}
@@ -0,0 +1,212 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.model.SlotCapacityClaim;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.infrastructure.config.CapacityProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.kata.delivery.infrastructure.persistence.CapacityStore.copyOf;
+
+/**
+ * In-memory capacity ledger in front of the time_slots table
+ * Keeps one lock-free counter per slot so claims never touch the database on the request path.
+ * Changed counters are written back in batches; on startup the counters are rebuilt from the
+ * reservations table, which is the source of truth if the process died between two flushes.
+ * Only valid when a single instance serves reservations.
+ */
+@Component
+@ConditionalOnProperty(name = "delivery.capacity.mode", havingValue = "ledger")
+@RequiredArgsConstructor
+@Slf4j
+public class CapacityLedger implements CapacityAllocator {
+
+    private final CapacityStore store;
+    private final CapacityProperties properties;
+
+    private final Map<Long, SlotCounter> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private Disposable flusher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration interval = properties.getLedger().getFlushInterval();
+
+        recover().block();
+        flusher = Flux.interval(interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush()
+                        .onErrorResume(e -> {
+                            log.error("Capacity ledger write-back failed, will retry", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+        log.info("Capacity ledger started with {} slots, flushing every {}", counters.size(), interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.dispose();
+        }
+        flush().block(Duration.ofSeconds(5));
+    }
+
+    @Override
+    public Mono<SlotCapacityClaim> claim(Long timeSlotId, int quantity) {
+        return counter(timeSlotId).map(counter -> {
+            int before = counter.tryClaim(quantity);
+            int claimed = Math.min(quantity, Math.max(0, counter.slot.getCapacity() - before));
+            if (claimed > 0) {
+                dirty.add(timeSlotId);
+            }
+            return new SlotCapacityClaim(counter.snapshot(before + claimed), claimed);
+        });
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> release(Long timeSlotId, int quantity) {
+        return counter(timeSlotId).flatMap(counter -> {
+            int reserved = counter.tryRelease(quantity);
+            if (reserved < 0) {
+                return Mono.empty();
+            }
+            dirty.add(timeSlotId);
+            return Mono.just(counter.snapshot(reserved));
+        });
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> find(Long timeSlotId) {
+        return Mono.justOrEmpty(counters.get(timeSlotId))
+                .map(counter -> counter.snapshot(counter.reserved.get()));
+    }
+
+    @Override
+    public void refresh(TimeSlotAggregate timeSlot) {
+        SlotCounter counter = counters.get(timeSlot.getId());
+        if (counter != null) {
+            counter.slot = copyOf(timeSlot);
+            // The saved row carries whatever count the caller had, ours wins on the next flush
+            dirty.add(timeSlot.getId());
+        }
+    }
+
+    /**
+     * Rebuild every counter from the reservations that actually exist
+     */
+    Mono<Void> recover() {
+        return store.loadAll()
+                .doOnNext(this::register)
+                .then();
+    }
+
+    /**
+     * Write every changed counter back in one batched statement
+     */
+    Mono<Void> flush() {
+        if (dirty.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<Long> ids = List.copyOf(dirty);
+        ids.forEach(dirty::remove);
+
+        Map<Long, Integer> counts = new HashMap<>();
+        ids.forEach(id -> counts.put(id, counters.get(id).reserved.get()));
+        return store.writeBack(counts)
+                // Absolute values are idempotent, the next flush simply writes them again
+                .doOnError(e -> dirty.addAll(ids));
+    }
+
+    private Mono<SlotCounter> counter(Long timeSlotId) {
+        SlotCounter counter = counters.get(timeSlotId);
+        if (counter != null) {
+            return Mono.just(counter);
+        }
+
+        // Slot created after startup, load it once
+        return store.load(timeSlotId).map(this::register);
+    }
+
+    private SlotCounter register(CapacityStore.SlotCount loaded) {
+        TimeSlotAggregate slot = loaded.slot();
+        SlotCounter existing = counters.putIfAbsent(slot.getId(), new SlotCounter(copyOf(slot), loaded.reserved()));
+        if (existing != null) {
+            return existing;
+        }
+        if (loaded.drifted()) {
+            dirty.add(slot.getId());
+        }
+        return counters.get(slot.getId());
+    }
+
+    /**
+     * Counter of one slot, updated with compare-and-set only
+     */
+    private static final class SlotCounter {
+
+        private volatile TimeSlotAggregate slot;
+        private final AtomicInteger reserved;
+
+        private SlotCounter(TimeSlotAggregate slot, int reserved) {
+            this.slot = slot;
+            this.reserved = new AtomicInteger(reserved);
+        }
+
+        /**
+         * Take as much of the quantity as fits
+         * @return the count before the claim
+         */
+        private int tryClaim(int quantity) {
+            int capacity = slot.getCapacity();
+            while (true) {
+                int current = reserved.get();
+                if (current >= capacity) {
+                    return current;
+                }
+                if (reserved.compareAndSet(current, Math.min(capacity, current + quantity))) {
+                    return current;
+                }
+            }
+        }
+
+        /**
+         * Give back as much of the quantity as is reserved
+         * @return the new count, or -1 if nothing was reserved
+         */
+        private int tryRelease(int quantity) {
+            while (true) {
+                int current = reserved.get();
+                if (current <= 0) {
+                    return -1;
+                }
+                if (reserved.compareAndSet(current, Math.max(0, current - quantity))) {
+                    return Math.max(0, current - quantity);
+                }
+            }
+        }
+
+        private TimeSlotAggregate snapshot(int reservedCount) {
+            TimeSlotAggregate copy = copyOf(slot);
+            copy.setCurrentReservations(reservedCount);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loading and write-back of slot counts for the in-process capacity allocators
+ * The reservations table is the source of truth, time_slots.current_reservations is only a copy of it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class CapacityStore {
+
+    private static final String COUNT_ACTIVE_SQL =
+            "SELECT time_slot_id, COUNT(*) AS reserved FROM reservations WHERE status IN (:statuses) GROUP BY time_slot_id";
+
+    private static final String COUNT_ACTIVE_FOR_SLOT_SQL =
+            "SELECT COUNT(*) AS reserved FROM reservations WHERE status IN (:statuses) AND time_slot_id = :timeSlotId";
+
+    /**
+     * Statuses that hold a unit of capacity
+     */
+    private static final List<String> ACTIVE_STATUSES =
+            List.of(ReservationStatus.CONFIRMED.name(), ReservationStatus.HOLD.name());
+
+    private static final String WRITE_BACK_SQL =
+            "UPDATE time_slots SET current_reservations = $1, version = version + 1 WHERE id = $2";
+
+    private final R2dbcTimeSlotRepository timeSlotRepository;
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Every slot with the number of reservations that actually exist for it
+     */
+    Flux<SlotCount> loadAll() {
+        return databaseClient.sql(COUNT_ACTIVE_SQL)
+                .bind("statuses", ACTIVE_STATUSES)
+                .map((row, metadata) -> Map.entry(
+                        row.get("time_slot_id", Long.class),
+                        row.get("reserved", Long.class).intValue()))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMapMany(reserved -> timeSlotRepository.findAll()
+                        .map(slot -> new SlotCount(slot, reserved.getOrDefault(slot.getId(), 0))));
+    }
+
+    /**
+     * One slot created after startup, with the number of reservations that actually exist for it
+     */
+    Mono<SlotCount> load(Long timeSlotId) {
+        return timeSlotRepository.findById(timeSlotId)
+                .zipWith(databaseClient.sql(COUNT_ACTIVE_FOR_SLOT_SQL)
+                        .bind("statuses", ACTIVE_STATUSES)
+                        .bind("timeSlotId", timeSlotId)
+                        .map((row, metadata) -> row.get("reserved", Long.class).intValue())
+                        .one())
+                .map(loaded -> new SlotCount(loaded.getT1(), loaded.getT2()));
+    }
+
+    /**
+     * Write absolute counts back in one batched statement, writing them again is harmless
+     */
+    Mono<Void> writeBack(Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(WRITE_BACK_SQL);
+                    boolean first = true;
+                    for (Map.Entry<Long, Integer> count : counts.entrySet()) {
+                        if (!first) {
+                            statement.add();
+                        }
+                        first = false;
+                        statement.bind(0, count.getValue()).bind(1, count.getKey());
+                    }
+                    return Flux.from(statement.execute()).flatMap(result -> result.getRowsUpdated());
+                })
+                .then()
+                .doOnSuccess(done -> log.debug("Wrote back capacity of {} slots", counts.size()));
+    }
+
+    static TimeSlotAggregate copyOf(TimeSlotAggregate slot) {
+        TimeSlotAggregate copy = new TimeSlotAggregate();
+        copy.setId(slot.getId());
+        copy.setDeliveryMode(slot.getDeliveryMode());
+        copy.setDate(slot.getDate());
+        copy.setStartTime(slot.getStartTime());
+        copy.setEndTime(slot.getEndTime());
+        copy.setCapacity(slot.getCapacity());
+        copy.setCurrentReservations(slot.getCurrentReservations());
+        copy.setVersion(slot.getVersion());
+        return copy;
+    }
+
+    /**
+     * A slot as stored together with the count it should have
+     */
+    record SlotCount(TimeSlotAggregate slot, int reserved) {
+
+        /**
+         * True when the stored count disagrees with the reservations, after a crash between two write-backs
+         */
+        boolean drifted() {
+            if (reserved == slot.getCurrentReservations()) {
+                return false;
+            }
+            log.warn("TimeSlot {} recorded {} reservations but {} exist, repairing",
+                    slot.getId(), slot.getCurrentReservations(), reserved);
+            return true;
+        }
+    }
+}
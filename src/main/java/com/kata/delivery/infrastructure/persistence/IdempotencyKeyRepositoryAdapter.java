@@ -0,0 +1,52 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.model.IdempotencyRecord;
+import com.kata.delivery.domain.port.outbound.IdempotencyKeyRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Adapter implementing IdempotencyKeyRepositoryPort using R2DBC
+ * Part of hexagonal architecture - infrastructure adapter
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyRepositoryAdapter implements IdempotencyKeyRepositoryPort {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<IdempotencyRecord> find(String idempotencyKey) {
+        return databaseClient.sql("SELECT reservation_id, request_fingerprint FROM idempotency_keys " +
+                        "WHERE idempotency_key = :key")
+                .bind("key", idempotencyKey)
+                .map(row -> new IdempotencyRecord(
+                        row.get("reservation_id", Long.class),
+                        row.get("request_fingerprint", String.class)))
+                .one();
+    }
+
+    @Override
+    public Mono<Void> save(String idempotencyKey, String requestFingerprint, Long reservationId) {
+        return databaseClient.sql("INSERT INTO idempotency_keys " +
+                        "(idempotency_key, request_fingerprint, reservation_id, created_at) " +
+                        "VALUES (:key, :fingerprint, :reservationId, :createdAt)")
+                .bind("key", idempotencyKey)
+                .bind("fingerprint", requestFingerprint)
+                .bind("reservationId", reservationId)
+                .bind("createdAt", LocalDateTime.now())
+                .then();
+    }
+
+    @Override
+    public Mono<Long> deleteCreatedBefore(LocalDateTime cutoff) {
+        return databaseClient.sql("DELETE FROM idempotency_keys WHERE created_at < :cutoff")
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated();
+    }
+}
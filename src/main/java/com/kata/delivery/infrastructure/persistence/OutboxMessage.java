@@ -0,0 +1,33 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized domain event waiting in the outbox table to be relayed to Kafka
+ * Written in the same transaction as the aggregates that raised it
+ */
+@Table("outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    private Long id;
+    
+    private String eventId;
+    private String eventType;
+    private String topic;
+    private String messageKey;
+    private byte[] payload;
+    private LocalDateTime createdAt;
+    private LocalDateTime deliveredAt;
+}
@@ -0,0 +1,30 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * R2DBC repository for the transactional outbox
+ * Infrastructure adapter implementing persistence
+ */
+@Repository
+public interface R2dbcOutboxRepository extends R2dbcRepository<OutboxMessage, Long> {
+    
+    @Query("SELECT * FROM outbox WHERE delivered_at IS NULL ORDER BY id LIMIT :limit")
+    Flux<OutboxMessage> findPending(int limit);
+    
+    @Modifying
+    @Query("UPDATE outbox SET delivered_at = :deliveredAt WHERE id IN (:ids)")
+    Mono<Integer> markDelivered(Collection<Long> ids, LocalDateTime deliveredAt);
+    
+    @Modifying
+    @Query("DELETE FROM outbox WHERE delivered_at < :before")
+    Mono<Integer> deleteDeliveredBefore(LocalDateTime before);
+}
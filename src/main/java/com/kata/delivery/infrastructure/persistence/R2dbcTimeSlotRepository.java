@@ -6,8 +6,10 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 /**
  * R2DBC repository for TimeSlotAggregate
@@ -20,8 +22,54 @@ public interface R2dbcTimeSlotRepository extends R2dbcRepository<TimeSlotAggrega
     
     Flux<TimeSlotAggregate> findByDate(LocalDate date);
     
+    Flux<TimeSlotAggregate> findByDateGreaterThanEqual(LocalDate date);
+    
+    Flux<TimeSlotAggregate> findByDeliveryModeAndDateBefore(DeliveryMode deliveryMode, LocalDate date);
+    
     Flux<TimeSlotAggregate> findByDeliveryModeAndDate(DeliveryMode deliveryMode, LocalDate date);
     
+    Flux<TimeSlotAggregate> findByDeliveryModeAndDateBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to);
+    
+    @Query("SELECT * FROM time_slots WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<TimeSlotAggregate> findAllAfter(long afterId, int limit);
+    
     @Query("SELECT * FROM time_slots WHERE delivery_mode = :deliveryMode AND date = :date AND current_reservations < capacity")
     Flux<TimeSlotAggregate> findAvailableSlots(DeliveryMode deliveryMode, LocalDate date);
+    
+    @Query("SELECT * FROM time_slots WHERE delivery_mode = :deliveryMode AND date BETWEEN :from AND :to " +
+           "AND current_reservations < capacity ORDER BY date, start_time, id")
+    Flux<TimeSlotAggregate> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to);
+    
+    /**
+     * Seek on (delivery_mode, date, start_time) and read in index order, stopping after limit free slots
+     */
+    @Query("SELECT * FROM time_slots WHERE delivery_mode = :deliveryMode AND date >= :date " +
+           "AND (date > :date OR start_time >= :startTime) AND current_reservations < capacity " +
+           "ORDER BY date, start_time, id LIMIT :limit")
+    Flux<TimeSlotAggregate> findNextAvailable(DeliveryMode deliveryMode, LocalDate date, LocalTime startTime, int limit);
+    
+    @Query("SELECT * FROM time_slots WHERE delivery_mode = :deliveryMode AND date >= :date " +
+           "AND (date > :date OR start_time >= :startTime) ORDER BY date, start_time, id")
+    Flux<TimeSlotAggregate> findStartingFrom(DeliveryMode deliveryMode, LocalDate date, LocalTime startTime);
+    
+    /**
+     * Conditional increment in a single statement, returns the updated row or nothing when the slot is full
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE time_slots SET current_reservations = current_reservations + 1, version = version + 1 " +
+           "WHERE id = :id AND current_reservations < capacity)")
+    Mono<TimeSlotAggregate> claimCapacity(Long id);
+    
+    /**
+     * Conditional decrement in a single statement, returns the updated row or nothing when nothing is reserved
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE time_slots SET current_reservations = current_reservations - 1, version = version + 1 " +
+           "WHERE id = :id AND current_reservations > 0)")
+    Mono<TimeSlotAggregate> releaseCapacity(Long id);
+    
+    /**
+     * Take as much of the requested quantity as fits in a single statement, returns the row as it was before
+     */
+    @Query("SELECT * FROM OLD TABLE (UPDATE time_slots SET current_reservations = LEAST(capacity, current_reservations + :quantity), " +
+           "version = version + 1 WHERE id = :id)")
+    Mono<TimeSlotAggregate> claimCapacityUpTo(Long id, int quantity);
 }
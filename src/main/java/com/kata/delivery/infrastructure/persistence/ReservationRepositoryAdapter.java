@@ -1,13 +1,26 @@
 package com.kata.delivery.infrastructure.persistence;
 
+import com.kata.delivery.application.dto.ReservationExportFilter;
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.DeliveryMode;
 import com.kata.delivery.domain.ReservationStatus;
 import com.kata.delivery.domain.model.ReservationAggregate;
 import com.kata.delivery.domain.port.outbound.ReservationRepositoryPort;
+import io.r2dbc.spi.Readable;
 import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Adapter implementing ReservationRepositoryPort using R2DBC
  * Part of hexagonal architecture - infrastructure adapter
@@ -16,13 +29,67 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class ReservationRepositoryAdapter implements ReservationRepositoryPort {
 
+    /**
+     * Rows per INSERT statement, keeps the bind parameter count well under driver limits
+     */
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    private static final String SELECT_WITH_TIME_SLOT =
+            "SELECT r.id, r.customer_name, r.customer_email, r.time_slot_id, r.status, " +
+            "r.created_at, r.cancelled_at, r.hold_expires_at, " +
+            "t.delivery_mode, t.date, t.start_time, t.end_time, t.capacity, t.current_reservations " +
+            "FROM reservations r JOIN time_slots t ON t.id = r.time_slot_id";
+
     private final R2dbcReservationRepository repository;
+    private final DatabaseClient databaseClient;
 
     @Override
     public Mono<ReservationAggregate> save(ReservationAggregate reservation) {
         return repository.save(reservation);
     }
 
+    @Override
+    public Flux<ReservationAggregate> insertAll(List<ReservationAggregate> reservations) {
+        return Flux.fromIterable(reservations)
+                .buffer(INSERT_CHUNK_SIZE)
+                .concatMap(this::insertChunk);
+    }
+
+    private Flux<ReservationAggregate> insertChunk(List<ReservationAggregate> chunk) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO reservations (customer_name, customer_email, time_slot_id, status, created_at) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:customerName").append(i)
+                    .append(", :customerEmail").append(i)
+                    .append(", :timeSlotId").append(i)
+                    .append(", :status").append(i)
+                    .append(", :createdAt").append(i)
+                    .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            ReservationAggregate reservation = chunk.get(i);
+            spec = spec.bind("customerName" + i, reservation.getCustomerName())
+                    .bind("customerEmail" + i, reservation.getCustomerEmail())
+                    .bind("timeSlotId" + i, reservation.getTimeSlotId())
+                    .bind("status" + i, reservation.getStatus().name())
+                    .bind("createdAt" + i, reservation.getCreatedAt());
+        }
+
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .index()
+                .map(generated -> {
+                    ReservationAggregate reservation = chunk.get(generated.getT1().intValue());
+                    reservation.setId(generated.getT2());
+                    reservation.setVersion(0L);
+                    return reservation;
+                });
+    }
+
     @Override
     public Mono<ReservationAggregate> findById(Long id) {
         return repository.findById(id);
@@ -52,4 +119,93 @@ public class ReservationRepositoryAdapter implements ReservationRepositoryPort {
     public Mono<Void> deleteById(Long id) {
         return repository.deleteById(id);
     }
+
+    @Override
+    public Mono<ReservationResponse> findResponseById(Long id) {
+        return databaseClient.sql(SELECT_WITH_TIME_SLOT + " WHERE r.id = :id")
+                .bind("id", id)
+                .map(ReservationRepositoryAdapter::toResponse)
+                .one();
+    }
+
+    @Override
+    public Flux<ReservationResponse> findAllResponses() {
+        return databaseClient.sql(SELECT_WITH_TIME_SLOT + " ORDER BY r.id")
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    @Override
+    public Flux<ReservationResponse> findResponsesAfter(long afterId, int limit) {
+        return databaseClient.sql(SELECT_WITH_TIME_SLOT + " WHERE r.id > :afterId ORDER BY r.id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    @Override
+    public Flux<ReservationResponse> findResponsesByCustomerEmail(String email) {
+        return databaseClient.sql(SELECT_WITH_TIME_SLOT + " WHERE r.customer_email = :email ORDER BY r.id")
+                .bind("email", email)
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    @Override
+    public Flux<ReservationResponse> streamResponses(ReservationExportFilter filter, int fetchSize) {
+        StringBuilder sql = new StringBuilder(SELECT_WITH_TIME_SLOT).append(" WHERE 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (filter.getFrom() != null) {
+            sql.append(" AND t.date >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND t.date <= :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" AND r.status = :status");
+            params.put("status", filter.getStatus().name());
+        }
+        if (filter.getDeliveryMode() != null) {
+            sql.append(" AND t.delivery_mode = :deliveryMode");
+            params.put("deliveryMode", filter.getDeliveryMode().name());
+        }
+        // No ORDER BY: sorting would make the database materialize the whole result before the first row
+        return databaseClient.sql(sql.toString())
+                .bindValues(params)
+                // Drivers with cursor support fetch the rows in chunks instead of materializing the result
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    static ReservationResponse toResponse(Readable row) {
+        int capacity = row.get("capacity", Integer.class);
+        int currentReservations = row.get("current_reservations", Integer.class);
+        Long timeSlotId = row.get("time_slot_id", Long.class);
+
+        return ReservationResponse.builder()
+                .id(row.get("id", Long.class))
+                .customerName(row.get("customer_name", String.class))
+                .customerEmail(row.get("customer_email", String.class))
+                .timeSlotId(timeSlotId)
+                .timeSlot(TimeSlotResponse.builder()
+                        .id(timeSlotId)
+                        .deliveryMode(DeliveryMode.valueOf(row.get("delivery_mode", String.class)))
+                        .date(row.get("date", LocalDate.class))
+                        .startTime(row.get("start_time", LocalTime.class))
+                        .endTime(row.get("end_time", LocalTime.class))
+                        .capacity(capacity)
+                        .currentReservations(currentReservations)
+                        .availableSlots(capacity - currentReservations)
+                        .isAvailable(currentReservations < capacity)
+                        .build())
+                .status(ReservationStatus.valueOf(row.get("status", String.class)))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .cancelledAt(row.get("cancelled_at", LocalDateTime.class))
+                .holdExpiresAt(row.get("hold_expires_at", LocalDateTime.class))
+                .build();
+    }
 }
@@ -0,0 +1,176 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.port.outbound.ReservationViewRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Adapter implementing ReservationViewRepositoryPort on the reservation_view table
+ * Reads never touch the reservations or time_slots tables, only the rebuild copies from them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationViewRepositoryAdapter implements ReservationViewRepositoryPort {
+
+    private static final String SELECT_VIEW =
+            "SELECT id, customer_name, customer_email, time_slot_id, status, created_at, cancelled_at, hold_expires_at, " +
+            "delivery_mode, date, start_time, end_time, capacity, current_reservations FROM reservation_view " +
+            // Rows only known from a cancellation until their creation event arrives
+            "WHERE customer_name IS NOT NULL";
+
+    /**
+     * Status order, a status never replaces a later one
+     */
+    private static final String STATUS_RANK =
+            "CASE %s WHEN 'CANCELLED' THEN 2 WHEN 'CONFIRMED' THEN 1 ELSE 0 END";
+
+    private static final String NEWER_SLOT = "(slot_changed_at IS NULL OR slot_changed_at <= :occurredOn)";
+
+    private static final String UPDATE =
+            "UPDATE reservation_view SET " +
+            "customer_name = COALESCE(:customerName, customer_name), " +
+            "customer_email = COALESCE(:customerEmail, customer_email), " +
+            "time_slot_id = :timeSlotId, " +
+            "created_at = COALESCE(:createdAt, created_at), " +
+            "delivery_mode = COALESCE(:deliveryMode, delivery_mode), " +
+            "date = COALESCE(:date, date), " +
+            "start_time = COALESCE(:startTime, start_time), " +
+            "end_time = COALESCE(:endTime, end_time), " +
+            "status = CASE WHEN :statusRank >= status_rank THEN :status ELSE status END, " +
+            "cancelled_at = CASE WHEN :statusRank >= status_rank THEN :cancelledAt ELSE cancelled_at END, " +
+            "hold_expires_at = CASE WHEN :statusRank >= status_rank AND :status <> 'CANCELLED' " +
+            "THEN :holdExpiresAt ELSE hold_expires_at END, " +
+            "status_rank = GREATEST(status_rank, :statusRank), " +
+            "capacity = CASE WHEN :capacity IS NOT NULL AND " + NEWER_SLOT + " THEN :capacity ELSE capacity END, " +
+            "current_reservations = CASE WHEN :capacity IS NOT NULL AND " + NEWER_SLOT +
+            " THEN :currentReservations ELSE current_reservations END, " +
+            "slot_changed_at = CASE WHEN :capacity IS NOT NULL AND " + NEWER_SLOT +
+            " THEN :occurredOn ELSE slot_changed_at END, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = :id";
+
+    private static final String INSERT =
+            "INSERT INTO reservation_view (id, customer_name, customer_email, time_slot_id, status, status_rank, " +
+            "created_at, cancelled_at, hold_expires_at, delivery_mode, date, start_time, end_time, capacity, " +
+            "current_reservations, slot_changed_at, updated_at) VALUES (:id, :customerName, :customerEmail, " +
+            ":timeSlotId, :status, :statusRank, :createdAt, :cancelledAt, :holdExpiresAt, :deliveryMode, :date, " +
+            ":startTime, :endTime, :capacity, :currentReservations, " +
+            "CASE WHEN :capacity IS NULL THEN NULL ELSE :occurredOn END, CURRENT_TIMESTAMP)";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Void> upsert(ReservationResponse reservation, LocalDateTime occurredOn) {
+        return write(UPDATE, reservation, occurredOn)
+                .flatMap(updated -> updated > 0
+                        ? Mono.<Void>empty()
+                        : write(INSERT, reservation, occurredOn)
+                                // Another event of the same reservation inserted it first, merge into its row
+                                .onErrorResume(DuplicateKeyException.class,
+                                        e -> write(UPDATE, reservation, occurredOn))
+                                .then());
+    }
+
+    @Override
+    public Mono<Void> updateTimeSlot(Long timeSlotId, int capacity, int currentReservations, LocalDateTime occurredOn) {
+        return databaseClient.sql("UPDATE reservation_view SET capacity = :capacity, " +
+                        "current_reservations = :currentReservations, slot_changed_at = :occurredOn, " +
+                        "updated_at = CURRENT_TIMESTAMP WHERE time_slot_id = :timeSlotId AND " + NEWER_SLOT)
+                .bind("capacity", capacity)
+                .bind("currentReservations", currentReservations)
+                .bind("occurredOn", occurredOn)
+                .bind("timeSlotId", timeSlotId)
+                .then();
+    }
+
+    @Override
+    @Transactional
+    public Mono<Long> rebuild() {
+        return databaseClient.sql("DELETE FROM reservation_view")
+                .then()
+                .then(databaseClient.sql("INSERT INTO reservation_view (id, customer_name, customer_email, " +
+                                "time_slot_id, status, status_rank, created_at, cancelled_at, hold_expires_at, " +
+                                "delivery_mode, date, start_time, end_time, capacity, current_reservations, " +
+                                "slot_changed_at, updated_at) " +
+                                "SELECT r.id, r.customer_name, r.customer_email, r.time_slot_id, r.status, " +
+                                String.format(STATUS_RANK, "r.status") + ", r.created_at, r.cancelled_at, " +
+                                "r.hold_expires_at, t.delivery_mode, t.date, t.start_time, t.end_time, t.capacity, " +
+                                "t.current_reservations, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+                                "FROM reservations r JOIN time_slots t ON t.id = r.time_slot_id")
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    @Override
+    public Mono<ReservationResponse> findById(Long id) {
+        return databaseClient.sql(SELECT_VIEW + " AND id = :id")
+                .bind("id", id)
+                .map(ReservationRepositoryAdapter::toResponse)
+                .one();
+    }
+
+    @Override
+    public Flux<ReservationResponse> findAll() {
+        return databaseClient.sql(SELECT_VIEW + " ORDER BY id")
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    @Override
+    public Flux<ReservationResponse> findByCustomerEmail(String email) {
+        return databaseClient.sql(SELECT_VIEW + " AND customer_email = :email ORDER BY id")
+                .bind("email", email)
+                .map(ReservationRepositoryAdapter::toResponse)
+                .all();
+    }
+
+    private Mono<Long> write(String sql, ReservationResponse reservation, LocalDateTime occurredOn) {
+        TimeSlotResponse timeSlot = reservation.getTimeSlot() != null
+                ? reservation.getTimeSlot()
+                : TimeSlotResponse.builder().build();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("id", reservation.getId())
+                .bind("timeSlotId", reservation.getTimeSlotId())
+                .bind("status", reservation.getStatus().name())
+                .bind("statusRank", rank(reservation.getStatus()))
+                .bind("occurredOn", occurredOn);
+        spec = bind(spec, "customerName", reservation.getCustomerName(), String.class);
+        spec = bind(spec, "customerEmail", reservation.getCustomerEmail(), String.class);
+        spec = bind(spec, "createdAt", reservation.getCreatedAt(), LocalDateTime.class);
+        spec = bind(spec, "cancelledAt", reservation.getCancelledAt(), LocalDateTime.class);
+        spec = bind(spec, "holdExpiresAt", reservation.getHoldExpiresAt(), LocalDateTime.class);
+        spec = bind(spec, "deliveryMode",
+                timeSlot.getDeliveryMode() != null ? timeSlot.getDeliveryMode().name() : null, String.class);
+        spec = bind(spec, "date", timeSlot.getDate(), LocalDate.class);
+        spec = bind(spec, "startTime", timeSlot.getStartTime(), LocalTime.class);
+        spec = bind(spec, "endTime", timeSlot.getEndTime(), LocalTime.class);
+        spec = bind(spec, "capacity", timeSlot.getCapacity(), Integer.class);
+        spec = bind(spec, "currentReservations", timeSlot.getCurrentReservations(), Integer.class);
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static int rank(ReservationStatus status) {
+        return switch (status) {
+            case CANCELLED -> 2;
+            case CONFIRMED -> 1;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.model.SlotCapacityClaim;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.infrastructure.config.CapacityProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.kata.delivery.infrastructure.persistence.CapacityStore.copyOf;
+
+/**
+ * Single-writer capacity allocator: every slot is owned by one worker thread
+ * Slots are sharded by id over a fixed set of workers. A worker keeps the TimeSlotAggregate of each
+ * of its slots in memory and applies claims and releases one after the other through the aggregate,
+ * so a hot slot never contends on a lock or a row and a full slot is refused without any I/O.
+ * Each worker writes its changed slots back in batches. Only valid when a single instance serves reservations.
+ */
+@Component
+@ConditionalOnProperty(name = "delivery.capacity.mode", havingValue = "single-writer")
+@Slf4j
+public class SingleWriterCapacityAllocator implements CapacityAllocator {
+
+    private final CapacityStore store;
+    private final Duration flushInterval;
+    private final Worker[] workers;
+
+    private Disposable flusher;
+
+    public SingleWriterCapacityAllocator(CapacityStore store, CapacityProperties properties) {
+        this.store = store;
+        this.flushInterval = properties.getSingleWriter().getFlushInterval();
+        this.workers = new Worker[properties.getSingleWriter().getWorkers()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(Schedulers.newSingle("capacity-writer-" + i));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long slots = store.loadAll()
+                .flatMap(loaded -> workerOf(loaded.slot().getId()).run(worker -> worker.register(loaded)))
+                .count()
+                .block();
+        flusher = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush()
+                        .onErrorResume(e -> {
+                            log.error("Capacity write-back failed, will retry", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+        log.info("Single-writer capacity started with {} slots on {} workers, flushing every {}",
+                slots, workers.length, flushInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.dispose();
+        }
+        flush().block(Duration.ofSeconds(5));
+        for (Worker worker : workers) {
+            worker.scheduler.dispose();
+        }
+    }
+
+    @Override
+    public Mono<SlotCapacityClaim> claim(Long timeSlotId, int quantity) {
+        return apply(timeSlotId, (worker, slot) -> {
+            int claimed = 0;
+            while (claimed < quantity && slot.hasAvailableCapacity()) {
+                slot.reserveSlot();
+                claimed++;
+            }
+            // Callers record the change on their own copy, the owned aggregate only keeps the count
+            slot.pullDomainEvents();
+            if (claimed > 0) {
+                worker.dirty.add(timeSlotId);
+            }
+            return new SlotCapacityClaim(copyOf(slot), claimed);
+        });
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> release(Long timeSlotId, int quantity) {
+        return apply(timeSlotId, (worker, slot) -> {
+            if (slot.getCurrentReservations() <= 0) {
+                return null;
+            }
+            for (int released = 0; released < quantity && slot.getCurrentReservations() > 0; released++) {
+                slot.releaseSlot();
+            }
+            slot.pullDomainEvents();
+            worker.dirty.add(timeSlotId);
+            return copyOf(slot);
+        });
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> find(Long timeSlotId) {
+        return workerOf(timeSlotId).run(worker -> {
+            TimeSlotAggregate slot = worker.slots.get(timeSlotId);
+            return slot != null ? copyOf(slot) : null;
+        });
+    }
+
+    @Override
+    public void refresh(TimeSlotAggregate timeSlot) {
+        workerOf(timeSlot.getId()).run(worker -> {
+            TimeSlotAggregate owned = worker.slots.get(timeSlot.getId());
+            if (owned != null) {
+                int reserved = owned.getCurrentReservations();
+                TimeSlotAggregate refreshed = copyOf(timeSlot);
+                // The saved row carries whatever count the caller had, ours wins on the next flush
+                refreshed.setCurrentReservations(reserved);
+                worker.slots.put(timeSlot.getId(), refreshed);
+                worker.dirty.add(timeSlot.getId());
+            }
+            return owned;
+        }).subscribe();
+    }
+
+    /**
+     * Write every worker's changed slots back, each worker reading its own counts
+     */
+    Mono<Void> flush() {
+        return Flux.fromArray(workers)
+                .flatMap(this::flush)
+                .then();
+    }
+
+    private Mono<Void> flush(Worker worker) {
+        return worker.run(Worker::drainDirty)
+                .flatMap(counts -> store.writeBack(counts)
+                        // Absolute values are idempotent, mark them again and the next flush rewrites them
+                        .onErrorResume(e -> worker.run(owner -> owner.dirty.addAll(counts.keySet()))
+                                .then(Mono.error(e))));
+    }
+
+    /**
+     * Run a command against the slot on its owning worker, loading the slot first if it is not owned yet
+     */
+    private <T> Mono<T> apply(Long timeSlotId, SlotCommand<T> command) {
+        Worker worker = workerOf(timeSlotId);
+        return worker.run(owner -> {
+                    TimeSlotAggregate slot = owner.slots.get(timeSlotId);
+                    if (slot != null) {
+                        return Mono.justOrEmpty(command.apply(owner, slot));
+                    }
+                    // Slot created after startup, load it off the worker then hand it over
+                    return store.load(timeSlotId)
+                            .flatMap(loaded -> worker.run(loader -> {
+                                loader.register(loaded);
+                                return command.apply(loader, loader.slots.get(timeSlotId));
+                            }));
+                })
+                .flatMap(Function.identity());
+    }
+
+    private Worker workerOf(Long timeSlotId) {
+        return workers[Math.floorMod(Long.hashCode(timeSlotId), workers.length)];
+    }
+
+    @FunctionalInterface
+    private interface SlotCommand<T> {
+        T apply(Worker worker, TimeSlotAggregate slot);
+    }
+
+    /**
+     * One writer thread and the slots it owns, only ever touched from that thread
+     */
+    private static final class Worker {
+
+        private final Scheduler scheduler;
+        private final Map<Long, TimeSlotAggregate> slots = new HashMap<>();
+        private final Set<Long> dirty = new HashSet<>();
+
+        private Worker(Scheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Queue a task in this worker's mailbox, emits its result or empty for null
+         * The result is handed back off the worker so the caller's next steps never hold up the mailbox.
+         */
+        private <T> Mono<T> run(Function<Worker, T> task) {
+            return Mono.fromCallable(() -> task.apply(this))
+                    .subscribeOn(scheduler)
+                    .publishOn(Schedulers.parallel());
+        }
+
+        private boolean register(CapacityStore.SlotCount loaded) {
+            if (slots.containsKey(loaded.slot().getId())) {
+                return false;
+            }
+            TimeSlotAggregate slot = copyOf(loaded.slot());
+            slot.setCurrentReservations(loaded.reserved());
+            slots.put(slot.getId(), slot);
+            if (loaded.drifted()) {
+                dirty.add(slot.getId());
+            }
+            return true;
+        }
+
+        private Map<Long, Integer> drainDirty() {
+            Map<Long, Integer> counts = new HashMap<>();
+            dirty.forEach(id -> counts.put(id, slots.get(id).getCurrentReservations()));
+            dirty.clear();
+            return counts;
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package com.kata.delivery.infrastructure.persistence;
 
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
 import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import com.kata.delivery.domain.model.SlotCapacityClaim;
 import com.kata.delivery.domain.model.TimeSlotAggregate;
 import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Adapter implementing TimeSlotRepositoryPort using R2DBC
@@ -18,45 +34,209 @@ import java.time.LocalDate;
 @RequiredArgsConstructor
 public class TimeSlotRepositoryAdapter implements TimeSlotRepositoryPort {
 
+    private static final String SELECT_CALENDAR =
+            "SELECT date, SUM(capacity) AS total_capacity, " +
+            "SUM(CASE WHEN current_reservations < capacity THEN capacity - current_reservations ELSE 0 END) " +
+            "AS remaining_capacity, " +
+            "SUM(CASE WHEN current_reservations < capacity THEN 1 ELSE 0 END) AS available_slots, " +
+            "MIN(CASE WHEN current_reservations < capacity THEN start_time END) AS earliest_available_start " +
+            "FROM time_slots WHERE delivery_mode = :deliveryMode AND date BETWEEN :from AND :to " +
+            "GROUP BY date ORDER BY date";
+
+    private static final Comparator<TimeSlotAggregate> START_ORDER = Comparator
+            .comparing(TimeSlotAggregate::getDate)
+            .thenComparing(TimeSlotAggregate::getStartTime)
+            .thenComparing(TimeSlotAggregate::getId);
+
     private final R2dbcTimeSlotRepository repository;
+    private final DatabaseClient databaseClient;
+    private final Optional<CapacityAllocator> capacityAllocator;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public Mono<TimeSlotAggregate> save(TimeSlotAggregate timeSlot) {
-        return repository.save(timeSlot);
+        return repository.save(timeSlot)
+                .doOnNext(saved -> capacityAllocator.ifPresent(allocator -> allocator.refresh(saved)))
+                .flatMap(saved -> publishSaved(saved).thenReturn(saved));
     }
 
     @Override
     public Mono<TimeSlotAggregate> findById(Long id) {
-        return repository.findById(id);
+        // The allocator's count is ahead of the table until its next write-back
+        return capacityAllocator
+                .map(allocator -> allocator.find(id).switchIfEmpty(Mono.defer(() -> repository.findById(id))))
+                .orElseGet(() -> repository.findById(id));
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findAllById(Collection<Long> ids) {
+        return withLiveCounts(repository.findAllById(ids));
     }
 
     @Override
     public Flux<TimeSlotAggregate> findAll() {
-        return repository.findAll();
+        return withLiveCounts(repository.findAll());
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findAllAfter(long afterId, int limit) {
+        return withLiveCounts(repository.findAllAfter(afterId, limit));
     }
 
     @Override
     public Flux<TimeSlotAggregate> findByDeliveryMode(DeliveryMode deliveryMode) {
-        return repository.findByDeliveryMode(deliveryMode);
+        return withLiveCounts(repository.findByDeliveryMode(deliveryMode));
     }
 
     @Override
     public Flux<TimeSlotAggregate> findByDate(LocalDate date) {
-        return repository.findByDate(date);
+        return withLiveCounts(repository.findByDate(date));
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findByDateGreaterThanEqual(LocalDate date) {
+        return withLiveCounts(repository.findByDateGreaterThanEqual(date));
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findByDeliveryModeAndDateBefore(DeliveryMode deliveryMode, LocalDate date) {
+        return withLiveCounts(repository.findByDeliveryModeAndDateBefore(deliveryMode, date));
     }
 
     @Override
     public Flux<TimeSlotAggregate> findByDeliveryModeAndDate(DeliveryMode deliveryMode, LocalDate date) {
-        return repository.findByDeliveryModeAndDate(deliveryMode, date);
+        return withLiveCounts(repository.findByDeliveryModeAndDate(deliveryMode, date));
     }
 
     @Override
     public Flux<TimeSlotAggregate> findAvailableSlots(DeliveryMode deliveryMode, LocalDate date) {
-        return repository.findAvailableSlots(deliveryMode, date);
+        // With an allocator the table lags behind the live counts, filter on those instead
+        return capacityAllocator
+                .map(allocator -> repository.findByDeliveryModeAndDate(deliveryMode, date)
+                        .flatMapSequential(slot -> allocator.find(slot.getId()).defaultIfEmpty(slot))
+                        .filter(TimeSlotAggregate::hasAvailableCapacity))
+                .orElseGet(() -> repository.findAvailableSlots(deliveryMode, date));
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findAvailableBetween(DeliveryMode deliveryMode, LocalDate from, LocalDate to) {
+        return capacityAllocator
+                .map(allocator -> repository.findByDeliveryModeAndDateBetween(deliveryMode, from, to)
+                        .flatMap(slot -> allocator.find(slot.getId()).defaultIfEmpty(slot))
+                        .filter(TimeSlotAggregate::hasAvailableCapacity)
+                        .sort(START_ORDER))
+                .orElseGet(() -> repository.findAvailableBetween(deliveryMode, from, to));
+    }
+
+    @Override
+    public Flux<TimeSlotAggregate> findNextAvailable(DeliveryMode deliveryMode, LocalDateTime after, int limit) {
+        // With an allocator availability is only known once the live count is overlaid, so read on until enough are free
+        return capacityAllocator
+                .map(allocator -> repository.findStartingFrom(deliveryMode, after.toLocalDate(), after.toLocalTime())
+                        .concatMap(slot -> allocator.find(slot.getId()).defaultIfEmpty(slot))
+                        .filter(TimeSlotAggregate::hasAvailableCapacity)
+                        .take(limit))
+                .orElseGet(() -> repository.findNextAvailable(deliveryMode, after.toLocalDate(), after.toLocalTime(), limit));
+    }
+
+    @Override
+    public Flux<AvailabilityDayResponse> findAvailabilityCalendar(DeliveryMode deliveryMode, LocalDate from, LocalDate to) {
+        if (capacityAllocator.isPresent()) {
+            // The table lags behind the allocator, aggregate the live counts of the slots instead
+            CapacityAllocator allocator = capacityAllocator.get();
+            return repository.findByDeliveryModeAndDateBetween(deliveryMode, from, to)
+                    .flatMapSequential(slot -> allocator.find(slot.getId()).defaultIfEmpty(slot))
+                    .collect(Collectors.groupingBy(TimeSlotAggregate::getDate, TreeMap::new, Collectors.toList()))
+                    .flatMapIterable(Map::entrySet)
+                    .map(day -> aggregate(day.getKey(), day.getValue()));
+        }
+        return databaseClient.sql(SELECT_CALENDAR)
+                .bind("deliveryMode", deliveryMode.name())
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> AvailabilityDayResponse.builder()
+                        .date(row.get("date", LocalDate.class))
+                        .totalCapacity(row.get("total_capacity", Number.class).intValue())
+                        .remainingCapacity(row.get("remaining_capacity", Number.class).intValue())
+                        .availableSlots(row.get("available_slots", Number.class).intValue())
+                        .earliestAvailableStart(row.get("earliest_available_start", LocalTime.class))
+                        .build())
+                .all();
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> claimCapacity(Long id) {
+        return capacityAllocator.isPresent()
+                ? TransactionalCapacity.claim(capacityAllocator.get(), id, 1)
+                        .filter(claim -> claim.getClaimed() > 0)
+                        .map(SlotCapacityClaim::getTimeSlot)
+                : repository.claimCapacity(id);
+    }
+
+    @Override
+    public Mono<SlotCapacityClaim> claimCapacity(Long id, int quantity) {
+        if (capacityAllocator.isPresent()) {
+            return TransactionalCapacity.claim(capacityAllocator.get(), id, quantity);
+        }
+        return repository.claimCapacityUpTo(id, quantity)
+                .map(before -> {
+                    int claimed = Math.max(0, Math.min(quantity, before.getCapacity() - before.getCurrentReservations()));
+                    before.setCurrentReservations(before.getCurrentReservations() + claimed);
+                    before.setVersion(before.getVersion() + 1);
+                    return new SlotCapacityClaim(before, claimed);
+                });
+    }
+
+    @Override
+    public Mono<TimeSlotAggregate> releaseCapacity(Long id) {
+        return capacityAllocator.isPresent()
+                ? TransactionalCapacity.release(capacityAllocator.get(), id)
+                : repository.releaseCapacity(id);
     }
 
     @Override
     public Mono<Void> deleteById(Long id) {
         return repository.deleteById(id);
     }
+
+    /**
+     * A saved slot brings new or changed capacity, tell the local read side once the save is committed
+     */
+    private Mono<Void> publishSaved(TimeSlotAggregate saved) {
+        TimeSlotCapacityChangedEvent event = TimeSlotCapacityChangedEvent.builder()
+                .timeSlotId(saved.getId())
+                .deliveryMode(saved.getDeliveryMode())
+                .date(saved.getDate())
+                .currentReservations(saved.getCurrentReservations())
+                .capacity(saved.getCapacity())
+                .isFullyBooked(!saved.hasAvailableCapacity())
+                .build();
+        return new TransactionalEventPublisher(applicationEventPublisher).publishEvent(event)
+                .onErrorResume(NoTransactionException.class,
+                        e -> Mono.fromRunnable(() -> applicationEventPublisher.publishEvent(event)));
+    }
+
+    /**
+     * The allocator's count is ahead of the table until its next write-back, read it over every slot in order
+     */
+    private Flux<TimeSlotAggregate> withLiveCounts(Flux<TimeSlotAggregate> slots) {
+        return capacityAllocator
+                .map(allocator -> slots.flatMapSequential(slot -> allocator.find(slot.getId()).defaultIfEmpty(slot)))
+                .orElse(slots);
+    }
+
+    private static AvailabilityDayResponse aggregate(LocalDate date, List<TimeSlotAggregate> slots) {
+        AvailabilityDayResponse day = AvailabilityDayResponse.empty(date);
+        for (TimeSlotAggregate slot : slots) {
+            day.setTotalCapacity(day.getTotalCapacity() + slot.getCapacity());
+            if (slot.hasAvailableCapacity()) {
+                day.setRemainingCapacity(day.getRemainingCapacity() + slot.getCapacity() - slot.getCurrentReservations());
+                day.setAvailableSlots(day.getAvailableSlots() + 1);
+                if (day.getEarliestAvailableStart() == null || slot.getStartTime().isBefore(day.getEarliestAvailableStart())) {
+                    day.setEarliestAvailableStart(slot.getStartTime());
+                }
+            }
+        }
+        return day;
+    }
 }
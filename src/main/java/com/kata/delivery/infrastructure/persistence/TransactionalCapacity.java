@@ -0,0 +1,79 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.model.SlotCapacityClaim;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Ties the in-memory counts of a capacity allocator to the caller's transaction
+ * A claim is taken right away and handed back if the transaction rolls back. A release only frees
+ * the unit once the transaction committed, so nobody can take it while the cancellation may still fail
+ * and a failed attempt that runs again never releases twice. Outside a transaction both apply right away.
+ */
+final class TransactionalCapacity {
+
+    private TransactionalCapacity() {
+    }
+
+    static Mono<SlotCapacityClaim> claim(CapacityAllocator allocator, Long timeSlotId, int quantity) {
+        return allocator.claim(timeSlotId, quantity)
+                .flatMap(claim -> claim.getClaimed() == 0
+                        ? Mono.just(claim)
+                        : currentTransaction().map(transaction -> {
+                            transaction.ifPresent(synchronizations -> synchronizations.registerSynchronization(
+                                    onRollback(() -> allocator.release(timeSlotId, claim.getClaimed()))));
+                            return claim;
+                        }));
+    }
+
+    static Mono<TimeSlotAggregate> release(CapacityAllocator allocator, Long timeSlotId) {
+        return currentTransaction().flatMap(transaction -> transaction
+                .map(synchronizations -> allocator.find(timeSlotId)
+                        .filter(slot -> slot.getCurrentReservations() > 0)
+                        .doOnNext(slot -> {
+                            // Report the slot as the commit will leave it
+                            slot.setCurrentReservations(slot.getCurrentReservations() - 1);
+                            synchronizations.registerSynchronization(afterCommit(() -> allocator.release(timeSlotId)));
+                        }))
+                .orElseGet(() -> allocator.release(timeSlotId)));
+    }
+
+    private static Mono<Optional<TransactionSynchronizationManager>> currentTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(NoTransactionException.class, e -> Mono.just(Optional.empty()));
+    }
+
+    /**
+     * Undo on rollback only, when the outcome is unknown the unit stays taken until the next recovery
+     */
+    private static TransactionSynchronization onRollback(CapacityChange undo) {
+        return new TransactionSynchronization() {
+            @Override
+            public Mono<Void> afterCompletion(int status) {
+                return status == STATUS_ROLLED_BACK ? undo.apply().then() : Mono.empty();
+            }
+        };
+    }
+
+    private static TransactionSynchronization afterCommit(CapacityChange change) {
+        return new TransactionSynchronization() {
+            @Override
+            public Mono<Void> afterCommit() {
+                return change.apply().then();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface CapacityChange {
+        Mono<TimeSlotAggregate> apply();
+    }
+}
@@ -0,0 +1,52 @@
+package com.kata.delivery.infrastructure.scheduling;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.domain.port.outbound.IdempotencyKeyRepositoryPort;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Removes stored idempotency keys once retries are no longer honoured
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyPurger {
+
+    private final IdempotencyKeyRepositoryPort idempotencyKeys;
+    private final ReservationProperties properties;
+
+    private Disposable purge;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration ttl = properties.getIdempotency().getTtl();
+
+        purge = Flux.interval(ttl)
+                .onBackpressureDrop()
+                .concatMap(tick -> idempotencyKeys.deleteCreatedBefore(LocalDateTime.now().minus(ttl))
+                        .doOnNext(deleted -> log.debug("Deleted {} expired idempotency keys", deleted))
+                        .onErrorResume(e -> {
+                            log.error("Idempotency key purge failed", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purge != null) {
+            purge.dispose();
+        }
+    }
+}
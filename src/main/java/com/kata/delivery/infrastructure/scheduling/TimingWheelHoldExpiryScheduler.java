@@ -0,0 +1,86 @@
+package com.kata.delivery.infrastructure.scheduling;
+
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.port.inbound.ReservationUseCase;
+import com.kata.delivery.domain.port.outbound.HoldExpiryPort;
+import com.kata.delivery.domain.port.outbound.ReservationRepositoryPort;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapter implementing HoldExpiryPort with an in-process hashed timing wheel
+ * Scheduling, cancelling and firing a hold are O(1) whatever the number of outstanding holds,
+ * and nothing scans the reservations table except once at startup to re-arm surviving holds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TimingWheelHoldExpiryScheduler implements HoldExpiryPort {
+
+    private static final long TICK_MILLIS = 500;
+    private static final int TICKS_PER_WHEEL = 1024;
+
+    private final ReservationRepositoryPort reservationRepository;
+    // Lazy, the use case itself depends on this port
+    private final ObjectProvider<ReservationUseCase> reservationUseCase;
+
+    private final HashedWheelTimer wheel = new HashedWheelTimer(
+            runnable -> new Thread(runnable, "hold-expiry-wheel"),
+            TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+    private final Map<Long, Timeout> holds = new ConcurrentHashMap<>();
+
+    /**
+     * Re-arm holds that were outstanding when the previous process stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reservationRepository.findByStatus(ReservationStatus.HOLD)
+                .doOnNext(hold -> schedule(hold.getId(), hold.getHoldExpiresAt()))
+                .count()
+                .subscribe(count -> log.info("Re-armed {} outstanding reservation holds", count),
+                        e -> log.error("Could not re-arm reservation holds", e));
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+
+    @Override
+    public void schedule(Long reservationId, LocalDateTime expiresAt) {
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), expiresAt).toMillis());
+        Timeout timeout = wheel.newTimeout(fired -> expire(reservationId), delay, TimeUnit.MILLISECONDS);
+        Timeout previous = holds.put(reservationId, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    @Override
+    public void cancel(Long reservationId) {
+        Timeout timeout = holds.remove(reservationId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private void expire(Long reservationId) {
+        holds.remove(reservationId);
+        // Runs on the wheel thread, hand off immediately so other expiries in this tick are not delayed
+        reservationUseCase.getObject().expireHold(reservationId)
+                .subscribe(null, e -> log.error("Could not expire hold for reservation {}", reservationId, e));
+    }
+}
@@ -1,19 +1,31 @@
 package com.kata.delivery.infrastructure.web;
 
 import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.PageResponse;
+import com.kata.delivery.application.dto.ReservationBatchResult;
+import com.kata.delivery.application.dto.ReservationExportFilter;
 import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.port.inbound.IdempotentReservationUseCase;
 import com.kata.delivery.domain.port.inbound.ReservationUseCase;
+import com.kata.delivery.domain.port.inbound.ReservationViewUseCase;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
+import static com.kata.delivery.infrastructure.config.WebCodecConfig.APPLICATION_SMILE_VALUE;
+
 /**
  * Reactive REST controller for reservation operations (WebFlux)
  * Inbound adapter in hexagonal architecture
@@ -25,23 +37,65 @@ import reactor.core.publisher.Mono;
 public class ReservationReactiveController {
 
     private final ReservationUseCase reservationUseCase;
+    private final IdempotentReservationUseCase idempotentReservationUseCase;
+    private final ReservationViewUseCase reservationViewUseCase;
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a reservation (reactive)", 
-               description = "Create a new reservation for a customer on a specific time slot using reactive approach")
+               description = "Create a new reservation for a customer on a specific time slot using reactive approach. " +
+                       "Requests repeated with the same Idempotency-Key return the original reservation")
     public Mono<ReservationResponse> createReservation(
+            @Parameter(description = "Client-generated key identifying retries of the same request")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreateReservationCommand command) {
+        return idempotentReservationUseCase.createReservation(idempotencyKey, command);
+    }
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create reservations in batch (reactive)", 
+               description = "Create many reservations in one call. Capacity is claimed once per time slot " +
+                       "and every item gets its own result, confirmed or rejected, in request order")
+    public Flux<ReservationBatchResult> createReservations(
+            @RequestBody Flux<CreateReservationCommand> commands) {
+        return reservationUseCase.createReservations(commands);
+    }
+
+    @PostMapping(value = "/holds", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Hold a time slot (reactive)", 
+               description = "Hold capacity on a time slot for a limited time while the customer checks out. " +
+                       "The hold must be confirmed before it expires, otherwise its capacity is released")
+    public Mono<ReservationResponse> placeHold(
             @Valid @RequestBody CreateReservationCommand command) {
-        return reservationUseCase.createReservation(command);
+        return reservationUseCase.placeHold(command);
     }
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(value = "/{id}/confirm", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Confirm a hold (reactive)", 
+               description = "Turn an unexpired hold into a confirmed reservation")
+    public Mono<ReservationResponse> confirmReservation(
+            @Parameter(description = "Reservation ID") @PathVariable Long id) {
+        return reservationUseCase.confirmReservation(id);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get all reservations (reactive)", 
                description = "Retrieve all reservations using reactive streams")
     public Flux<ReservationResponse> getAllReservations() {
         return reservationUseCase.getAllReservations();
     }
 
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Get a page of reservations (reactive)", 
+               description = "Retrieve reservations in id order, one page at a time. Pass the nextCursor of " +
+                       "a page as 'after' to get the following one, the last page has no nextCursor")
+    public Mono<PageResponse<ReservationResponse>> getReservationsPage(
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, at most 1000") @RequestParam int limit) {
+        return reservationUseCase.getReservationsPage(after, limit);
+    }
+
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get reservation by ID (reactive)", 
                description = "Retrieve a specific reservation by its ID")
@@ -50,7 +104,7 @@ public class ReservationReactiveController {
         return reservationUseCase.getReservationById(id);
     }
 
-    @GetMapping(value = "/by-customer", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/by-customer", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get reservations by customer email (reactive)", 
                description = "Retrieve all reservations for a specific customer")
     public Flux<ReservationResponse> getReservationsByCustomerEmail(
@@ -58,6 +112,27 @@ public class ReservationReactiveController {
         return reservationUseCase.getReservationsByCustomer(email);
     }
 
+    @GetMapping(value = "/by-status", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Get reservations by status (reactive)", 
+               description = "Retrieve all reservations in a given status, e.g. the holds awaiting confirmation")
+    public Flux<ReservationResponse> getReservationsByStatus(
+            @Parameter(description = "Reservation status") @RequestParam ReservationStatus status) {
+        return reservationUseCase.getReservationsByStatus(status);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export reservations (NDJSON)", 
+               description = "Stream every matching reservation with its time slot, one JSON document per line")
+    public Flux<ReservationResponse> exportReservations(
+            @Parameter(description = "First delivery date (yyyy-MM-dd)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last delivery date (yyyy-MM-dd)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Reservation status") @RequestParam(required = false) ReservationStatus status,
+            @Parameter(description = "Delivery mode") @RequestParam(required = false) DeliveryMode deliveryMode) {
+        return reservationUseCase.exportReservations(new ReservationExportFilter(from, to, status, deliveryMode));
+    }
+
     @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Cancel a reservation (reactive)", 
                description = "Cancel an existing reservation")
@@ -67,6 +142,13 @@ public class ReservationReactiveController {
         return reservationUseCase.cancelReservation(id, reason);
     }
 
+    @PostMapping(value = "/view/rebuild", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Rebuild the reservation read model (reactive)", 
+               description = "Recreate the read model from the reservations, returns the number of reservations")
+    public Mono<Long> rebuildReservationView() {
+        return reservationViewUseCase.rebuild();
+    }
+
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream reservations (SSE)", 
                description = "Stream reservations using Server-Sent Events")
@@ -1,5 +1,8 @@
 package com.kata.delivery.infrastructure.web;
 
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
+import com.kata.delivery.application.dto.PageResponse;
 import com.kata.delivery.application.dto.TimeSlotResponse;
 import com.kata.delivery.domain.DeliveryMode;
 import com.kata.delivery.domain.port.inbound.TimeSlotUseCase;
@@ -8,16 +11,24 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.kata.delivery.infrastructure.config.WebCodecConfig.APPLICATION_SMILE_VALUE;
 
 /**
  * Reactive REST controller for time slot operations (WebFlux)
  * Inbound adapter in hexagonal architecture
+ * Versioned listings carry a strong ETag, a matching If-None-Match is answered 304 before the body is built
  */
 @RestController
 @RequestMapping("/api/v2/time-slots")
@@ -26,14 +37,25 @@ import java.time.LocalDate;
 public class TimeSlotReactiveController {
 
     private final TimeSlotUseCase timeSlotUseCase;
+    private final TimeSlotProperties properties;
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get all time slots (reactive)", 
                description = "Retrieve all available time slots using reactive streams")
     public Flux<TimeSlotResponse> getAllTimeSlots() {
         return timeSlotUseCase.getAllTimeSlots();
     }
 
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Get a page of time slots (reactive)", 
+               description = "Retrieve time slots in id order, one page at a time. Pass the nextCursor of " +
+                       "a page as 'after' to get the following one, the last page has no nextCursor")
+    public Mono<PageResponse<TimeSlotResponse>> getTimeSlotsPage(
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, at most 1000") @RequestParam int limit) {
+        return timeSlotUseCase.getTimeSlotsPage(after, limit);
+    }
+
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get time slot by ID (reactive)", 
                description = "Retrieve a specific time slot by its ID")
@@ -42,7 +64,7 @@ public class TimeSlotReactiveController {
         return timeSlotUseCase.getTimeSlotById(id);
     }
 
-    @GetMapping(value = "/by-delivery-mode/{deliveryMode}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/by-delivery-mode/{deliveryMode}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get time slots by delivery mode (reactive)", 
                description = "Retrieve all time slots for a specific delivery mode")
     public Flux<TimeSlotResponse> getTimeSlotsByDeliveryMode(
@@ -51,30 +73,87 @@ public class TimeSlotReactiveController {
         return timeSlotUseCase.getTimeSlotsByDeliveryMode(deliveryMode);
     }
 
-    @GetMapping(value = "/by-date", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/by-date", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get time slots by date (reactive)", 
                description = "Retrieve all time slots for a specific date")
-    public Flux<TimeSlotResponse> getTimeSlotsByDate(
+    public Mono<ResponseEntity<Flux<TimeSlotResponse>>> getTimeSlotsByDate(
             @Parameter(description = "Date in format yyyy-MM-dd") 
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return timeSlotUseCase.getTimeSlotsByDate(date);
+        return versioned(timeSlotUseCase.getTimeSlotsVersion(null, date), timeSlotUseCase.getTimeSlotsByDate(date));
     }
 
-    @GetMapping(value = "/available", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/available", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get available time slots (reactive)", 
                description = "Retrieve available time slots for a specific delivery mode and date using reactive streams")
-    public Flux<TimeSlotResponse> getAvailableTimeSlots(
+    public Mono<ResponseEntity<Flux<TimeSlotResponse>>> getAvailableTimeSlots(
             @Parameter(description = "Delivery mode") 
             @RequestParam DeliveryMode deliveryMode,
             @Parameter(description = "Date in format yyyy-MM-dd") 
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return timeSlotUseCase.getAvailableTimeSlots(deliveryMode, date);
+        return versioned(timeSlotUseCase.getTimeSlotsVersion(deliveryMode, date),
+                timeSlotUseCase.getAvailableTimeSlots(deliveryMode, date));
+    }
+
+    @GetMapping(value = "/available/between", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get available time slots over a date range (reactive)", 
+               description = "Available time slots for a delivery mode from one date to another, both included, " +
+                       "ordered by date then start time")
+    public Flux<TimeSlotResponse> findAvailableBetween(
+            @Parameter(description = "Delivery mode") @RequestParam DeliveryMode deliveryMode,
+            @Parameter(description = "First day (yyyy-MM-dd)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (yyyy-MM-dd)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return timeSlotUseCase.findAvailableBetween(deliveryMode, from, to);
+    }
+
+    @GetMapping(value = "/available/next", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get the next available time slots (reactive)", 
+               description = "First available time slots for a delivery mode starting at or after a time")
+    public Flux<TimeSlotResponse> findNextAvailable(
+            @Parameter(description = "Delivery mode") @RequestParam DeliveryMode deliveryMode,
+            @Parameter(description = "Earliest start (yyyy-MM-ddTHH:mm), now when omitted") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @Parameter(description = "Number of slots") @RequestParam(defaultValue = "5") int limit) {
+        return timeSlotUseCase.findNextAvailable(deliveryMode, after != null ? after : LocalDateTime.now(), limit);
+    }
+
+    @GetMapping(value = "/calendar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get the availability calendar (reactive)", 
+               description = "Capacity, remaining capacity, available slots and earliest free start per day")
+    public Mono<List<AvailabilityDayResponse>> getAvailabilityCalendar(
+            @Parameter(description = "Delivery mode") @RequestParam DeliveryMode deliveryMode,
+            @Parameter(description = "First day (yyyy-MM-dd), today when omitted") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Number of days") @RequestParam(defaultValue = "14") int days) {
+        return timeSlotUseCase.getAvailabilityCalendar(deliveryMode, from != null ? from : LocalDate.now(), days);
     }
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream time slots (SSE)", 
-               description = "Stream time slots using Server-Sent Events")
-    public Flux<TimeSlotResponse> streamTimeSlots() {
-        return timeSlotUseCase.getAllTimeSlots();
+               description = "Stream the current state of time slots then each capacity change as it happens, " +
+                       "using Server-Sent Events. A slow client gets the latest state of each slot it missed")
+    public Flux<TimeSlotResponse> streamTimeSlots(
+            @Parameter(description = "Delivery mode") 
+            @RequestParam(required = false) DeliveryMode deliveryMode,
+            @Parameter(description = "Date in format yyyy-MM-dd") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return timeSlotUseCase.watchTimeSlots(deliveryMode, date);
+    }
+
+    /**
+     * Tag the listing with its version, the body is only subscribed when the client's copy is stale
+     */
+    private Mono<ResponseEntity<Flux<TimeSlotResponse>>> versioned(Mono<String> version, Flux<TimeSlotResponse> body) {
+        TimeSlotProperties.HttpCache httpCache = properties.getHttpCache();
+        return version
+                .map(tag -> ResponseEntity.ok()
+                        .eTag(tag)
+                        // The version is shared by every representation of the listing
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .cacheControl(CacheControl.maxAge(httpCache.getMaxAge())
+                                .staleWhileRevalidate(httpCache.getStaleWhileRevalidate()))
+                        .body(body))
+                .defaultIfEmpty(ResponseEntity.ok().body(body));
     }
 }
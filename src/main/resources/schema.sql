@@ -1,5 +1,8 @@
 -- Schema for reactive R2DBC application
 
+DROP TABLE IF EXISTS reservation_view;
+DROP TABLE IF EXISTS idempotency_keys;
+DROP TABLE IF EXISTS outbox;
 DROP TABLE IF EXISTS reservations;
 DROP TABLE IF EXISTS time_slots;
 
@@ -11,6 +14,7 @@ CREATE TABLE time_slots (
     end_time TIME NOT NULL,
     capacity INTEGER NOT NULL,
     current_reservations INTEGER NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT chk_capacity CHECK (capacity > 0),
     CONSTRAINT chk_reservations CHECK (current_reservations >= 0 AND current_reservations <= capacity)
 );
@@ -23,12 +27,57 @@ CREATE TABLE reservations (
     status VARCHAR(50) NOT NULL,
     created_at TIMESTAMP NOT NULL,
     cancelled_at TIMESTAMP,
+    hold_expires_at TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (time_slot_id) REFERENCES time_slots(id)
 );
 
-CREATE INDEX idx_time_slots_delivery_mode ON time_slots(delivery_mode);
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_id VARCHAR(36) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255) NOT NULL,
+    payload VARBINARY(65535) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_fingerprint CHAR(64) NOT NULL,
+    reservation_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (reservation_id) REFERENCES reservations(id)
+);
+
+-- Read model maintained from domain events, no foreign keys to the write tables
+CREATE TABLE reservation_view (
+    id BIGINT PRIMARY KEY,
+    customer_name VARCHAR(255),
+    customer_email VARCHAR(255),
+    time_slot_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    status_rank INTEGER NOT NULL,
+    created_at TIMESTAMP,
+    cancelled_at TIMESTAMP,
+    hold_expires_at TIMESTAMP,
+    delivery_mode VARCHAR(50),
+    date DATE,
+    start_time TIME,
+    end_time TIME,
+    capacity INTEGER,
+    current_reservations INTEGER,
+    slot_changed_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
+
 CREATE INDEX idx_time_slots_date ON time_slots(date);
-CREATE INDEX idx_time_slots_mode_date ON time_slots(delivery_mode, date);
+CREATE INDEX idx_time_slots_mode_date_start ON time_slots(delivery_mode, date, start_time);
 CREATE INDEX idx_reservations_email ON reservations(customer_email);
 CREATE INDEX idx_reservations_status ON reservations(status);
 CREATE INDEX idx_reservations_time_slot ON reservations(time_slot_id);
+CREATE INDEX idx_outbox_pending ON outbox(delivered_at, id);
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys(created_at);
+CREATE INDEX idx_reservation_view_email ON reservation_view(customer_email);
+CREATE INDEX idx_reservation_view_time_slot ON reservation_view(time_slot_id);
@@ -0,0 +1,134 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.AvailabilityDayResponse;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reactive tests for AvailableTimeSlotCache
+ */
+class AvailableTimeSlotCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 18);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private AvailableTimeSlotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AvailableTimeSlotCache(new TimeSlotProperties(), meterRegistry);
+    }
+
+    @Test
+    void get_LoadsOncePerKeyUntilCapacityChanges() {
+        // Given: two reads of the same key
+        read(DeliveryMode.DRIVE, DATE);
+        read(DeliveryMode.DRIVE, DATE);
+        assertEquals(1, loads.get());
+
+        // When: a change on another key, then on this one
+        cache.onCapacityChanged(event(DeliveryMode.DELIVERY, DATE));
+        read(DeliveryMode.DRIVE, DATE);
+        assertEquals(1, loads.get());
+
+        cache.onCapacityChanged(event(DeliveryMode.DRIVE, DATE));
+        read(DeliveryMode.DRIVE, DATE);
+
+        // Then
+        assertEquals(2, loads.get());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", AvailableTimeSlotCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", AvailableTimeSlotCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_EventWithoutDateDropsWholeDeliveryMode() {
+        // Given
+        read(DeliveryMode.DRIVE, DATE);
+        read(DeliveryMode.DRIVE, DATE.plusDays(1));
+        read(DeliveryMode.DELIVERY, DATE);
+
+        // When
+        cache.invalidate(event(DeliveryMode.DRIVE, null));
+        read(DeliveryMode.DRIVE, DATE);
+        read(DeliveryMode.DRIVE, DATE.plusDays(1));
+        read(DeliveryMode.DELIVERY, DATE);
+
+        // Then
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void get_FailedLoadIsNotCached() {
+        // Given
+        StepVerifier.create(cache.get(DeliveryMode.DRIVE, DATE, () -> Flux.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // When & Then
+        read(DeliveryMode.DRIVE, DATE);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getCalendar_DroppedOnlyByChangesWithinItsDays() {
+        // Given: a week from DATE
+        readCalendar(DeliveryMode.DRIVE, DATE, 7);
+        readCalendar(DeliveryMode.DRIVE, DATE, 7);
+        assertEquals(1, loads.get());
+
+        // When: changes outside the week or on another mode, then on its last day
+        cache.onCapacityChanged(event(DeliveryMode.DRIVE, DATE.plusDays(7)));
+        cache.onCapacityChanged(event(DeliveryMode.DELIVERY, DATE.plusDays(3)));
+        readCalendar(DeliveryMode.DRIVE, DATE, 7);
+        assertEquals(1, loads.get());
+
+        cache.onCapacityChanged(event(DeliveryMode.DRIVE, DATE.plusDays(6)));
+        readCalendar(DeliveryMode.DRIVE, DATE, 7);
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    private void readCalendar(DeliveryMode deliveryMode, LocalDate from, int days) {
+        StepVerifier.create(cache.getCalendar(deliveryMode, from, days, () -> Mono.fromCallable(() -> {
+                    loads.incrementAndGet();
+                    return List.of(AvailabilityDayResponse.empty(from));
+                })))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    private void read(DeliveryMode deliveryMode, LocalDate date) {
+        StepVerifier.create(cache.get(deliveryMode, date, () -> Flux.defer(() -> {
+                    loads.incrementAndGet();
+                    return Flux.just(TimeSlotResponse.builder().id(1L).deliveryMode(deliveryMode).date(date).build());
+                })))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    private static TimeSlotCapacityChangedEvent event(DeliveryMode deliveryMode, LocalDate date) {
+        return TimeSlotCapacityChangedEvent.builder()
+                .timeSlotId(1L)
+                .deliveryMode(deliveryMode)
+                .date(date)
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.ReservationBatchResult;
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.exception.TimeSlotNotAvailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reactive tests for GroupCommitReservationService
+ */
+@ExtendWith(MockitoExtension.class)
+class GroupCommitReservationServiceTest {
+
+    @Mock
+    private ReservationApplicationService delegate;
+
+    private GroupCommitReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        ReservationProperties properties = new ReservationProperties();
+        properties.getGroupCommit().setMaxInFlight(1);
+        service = new GroupCommitReservationService(delegate, properties);
+    }
+
+    @Test
+    void createReservation_RequestsQueuedBehindACommitShareTheNextBatch() {
+        // Given: the first commit stays open while two more requests arrive
+        Sinks.Many<ReservationBatchResult> firstCommit = Sinks.many().unicast().onBackpressureBuffer();
+        when(delegate.createReservations(any()))
+                .thenAnswer(invocation -> invocation.<Flux<CreateReservationCommand>>getArgument(0)
+                        .collectList()
+                        .flatMapMany(commands -> firstCommit.asFlux()))
+                .thenAnswer(invocation -> invocation.<Flux<CreateReservationCommand>>getArgument(0)
+                        .collectList()
+                        .doOnNext(commands -> assertEquals(2, commands.size()))
+                        .flatMapMany(commands -> Flux.just(
+                                confirmed(0, 2L),
+                                ReservationBatchResult.builder()
+                                        .index(1)
+                                        .confirmed(false)
+                                        .rejection(new TimeSlotNotAvailableException(1L))
+                                        .build())));
+
+        // When
+        var first = service.createReservation(command("first@example.com")).toFuture();
+        var second = service.createReservation(command("second@example.com")).toFuture();
+        var third = service.createReservation(command("third@example.com")).toFuture();
+        firstCommit.tryEmitNext(confirmed(0, 1L));
+        firstCommit.tryEmitComplete();
+
+        // Then
+        StepVerifier.create(Mono.fromFuture(first))
+                .expectNextMatches(response -> response.getId() == 1L)
+                .verifyComplete();
+        StepVerifier.create(Mono.fromFuture(second))
+                .expectNextMatches(response -> response.getId() == 2L)
+                .verifyComplete();
+        StepVerifier.create(Mono.fromFuture(third))
+                .expectError(TimeSlotNotAvailableException.class)
+                .verify();
+        verify(delegate, times(2)).createReservations(any());
+    }
+
+    @Test
+    void createReservation_FailedBatchCommitsEachRequestOnItsOwn() {
+        // Given: one request breaks the shared insert, the batch rolls back as a whole
+        Sinks.Many<ReservationBatchResult> firstCommit = Sinks.many().unicast().onBackpressureBuffer();
+        CreateReservationCommand faulty = command("faulty@example.com");
+        when(delegate.createReservations(any()))
+                .thenAnswer(invocation -> invocation.<Flux<CreateReservationCommand>>getArgument(0)
+                        .collectList()
+                        .flatMapMany(commands -> firstCommit.asFlux()))
+                .thenReturn(Flux.error(new IllegalStateException("value too long")));
+        when(delegate.createReservation(any())).thenAnswer(invocation -> invocation.getArgument(0) == faulty
+                ? Mono.error(new IllegalStateException("value too long"))
+                : Mono.just(ReservationResponse.builder().id(3L).build()));
+
+        // When
+        var first = service.createReservation(command("first@example.com")).toFuture();
+        var second = service.createReservation(faulty).toFuture();
+        var third = service.createReservation(command("third@example.com")).toFuture();
+        firstCommit.tryEmitNext(confirmed(0, 1L));
+        firstCommit.tryEmitComplete();
+
+        // Then
+        StepVerifier.create(Mono.fromFuture(first))
+                .expectNextMatches(response -> response.getId() == 1L)
+                .verifyComplete();
+        StepVerifier.create(Mono.fromFuture(second))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(Mono.fromFuture(third))
+                .expectNextMatches(response -> response.getId() == 3L)
+                .verifyComplete();
+        verify(delegate, times(2)).createReservation(any());
+    }
+
+    private CreateReservationCommand command(String email) {
+        return CreateReservationCommand.builder()
+                .customerName("Customer")
+                .customerEmail(email)
+                .timeSlotId(1L)
+                .build();
+    }
+
+    private ReservationBatchResult confirmed(int index, Long id) {
+        return ReservationBatchResult.builder()
+                .index(index)
+                .confirmed(true)
+                .reservation(ReservationResponse.builder().id(id).build())
+                .build();
+    }
+}
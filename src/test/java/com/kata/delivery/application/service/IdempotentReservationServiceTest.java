@@ -0,0 +1,164 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.model.IdempotencyRecord;
+import com.kata.delivery.domain.port.inbound.ReservationUseCase;
+import com.kata.delivery.domain.port.outbound.IdempotencyKeyRepositoryPort;
+import com.kata.delivery.exception.IdempotencyKeyReusedException;
+import com.kata.delivery.exception.TimeSlotNotAvailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reactive tests for IdempotentReservationService
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotentReservationServiceTest {
+
+    @Mock
+    private ReservationUseCase reservationUseCase;
+
+    @Mock
+    private IdempotencyKeyRepositoryPort idempotencyKeys;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private IdempotentReservationService service;
+    private CreateReservationCommand command;
+    private ReservationResponse created;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotentReservationService(
+                reservationUseCase, idempotencyKeys, transactionalOperator, new ReservationProperties());
+
+        command = CreateReservationCommand.builder()
+                .customerName("Ahmed Soumer")
+                .customerEmail("ahmed.soumer@example.com")
+                .timeSlotId(1L)
+                .build();
+        created = ReservationResponse.builder().id(7L).build();
+    }
+
+    @Test
+    void createReservation_RetriesShareOneExecution() {
+        // Given
+        when(idempotencyKeys.find("key-1")).thenReturn(Mono.empty());
+        when(transactionalOperator.transactional(ArgumentMatchers.<Mono<ReservationResponse>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationUseCase.createReservation(command)).thenReturn(Mono.just(created));
+        when(idempotencyKeys.save(eq("key-1"), anyString(), eq(7L))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(created)
+                .verifyComplete();
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(created)
+                .verifyComplete();
+
+        verify(reservationUseCase, times(1)).createReservation(command);
+        verify(idempotencyKeys, times(1)).find("key-1");
+    }
+
+    @Test
+    void createReservation_ReplaysKeyStoredBeforeRestart() {
+        // Given
+        when(idempotencyKeys.find("key-1")).thenReturn(Mono.just(recorded(7L, command)));
+        when(reservationUseCase.getReservationById(7L)).thenReturn(Mono.just(created));
+
+        // When & Then
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(created)
+                .verifyComplete();
+
+        verify(reservationUseCase, never()).createReservation(any());
+    }
+
+    @Test
+    void createReservation_LosingConcurrentInsertReplaysWinner() {
+        // Given
+        when(idempotencyKeys.find("key-1"))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(recorded(3L, command)));
+        when(transactionalOperator.transactional(ArgumentMatchers.<Mono<ReservationResponse>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationUseCase.createReservation(command)).thenReturn(Mono.just(created));
+        when(idempotencyKeys.save(eq("key-1"), anyString(), any()))
+                .thenReturn(Mono.error(new DuplicateKeyException("key-1")));
+        ReservationResponse winner = ReservationResponse.builder().id(3L).build();
+        when(reservationUseCase.getReservationById(3L)).thenReturn(Mono.just(winner));
+
+        // When & Then
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(winner)
+                .verifyComplete();
+    }
+
+    @Test
+    void createReservation_FailureIsNotCached() {
+        // Given
+        when(idempotencyKeys.find("key-1")).thenReturn(Mono.empty());
+        when(transactionalOperator.transactional(ArgumentMatchers.<Mono<ReservationResponse>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationUseCase.createReservation(command))
+                .thenReturn(Mono.error(new TimeSlotNotAvailableException("Time slot is full")))
+                .thenReturn(Mono.just(created));
+        when(idempotencyKeys.save(eq("key-1"), anyString(), eq(7L))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectError(TimeSlotNotAvailableException.class)
+                .verify();
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(created)
+                .verifyComplete();
+    }
+
+    @Test
+    void createReservation_RejectsKeyReusedForAnotherRequest() {
+        // Given: the key was used for this command, in memory on this instance and stored by another one
+        CreateReservationCommand other = CreateReservationCommand.builder()
+                .customerName("Ahmed Soumer")
+                .customerEmail("ahmed.soumer@example.com")
+                .timeSlotId(2L)
+                .build();
+        when(idempotencyKeys.find("key-1")).thenReturn(Mono.empty());
+        when(idempotencyKeys.find("key-2")).thenReturn(Mono.just(recorded(7L, command)));
+        when(transactionalOperator.transactional(ArgumentMatchers.<Mono<ReservationResponse>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationUseCase.createReservation(command)).thenReturn(Mono.just(created));
+        when(idempotencyKeys.save(eq("key-1"), anyString(), eq(7L))).thenReturn(Mono.empty());
+        service.createReservation("key-1", command).block();
+
+        // When & Then
+        StepVerifier.create(service.createReservation("key-1", other))
+                .expectError(IdempotencyKeyReusedException.class)
+                .verify();
+        StepVerifier.create(service.createReservation("key-2", other))
+                .expectError(IdempotencyKeyReusedException.class)
+                .verify();
+        StepVerifier.create(service.createReservation("key-1", command))
+                .expectNext(created)
+                .verifyComplete();
+
+        verify(reservationUseCase, times(1)).createReservation(any());
+        verify(reservationUseCase, never()).getReservationById(any());
+    }
+
+    private static IdempotencyRecord recorded(Long reservationId, CreateReservationCommand command) {
+        return new IdempotencyRecord(reservationId, IdempotentReservationService.fingerprint(command));
+    }
+}
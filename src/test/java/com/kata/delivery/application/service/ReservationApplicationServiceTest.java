@@ -1,28 +1,53 @@
 package com.kata.delivery.application.service;
 
+import com.kata.delivery.application.config.ReservationProperties;
 import com.kata.delivery.application.dto.CreateReservationCommand;
+import com.kata.delivery.application.dto.PageCursor;
+import com.kata.delivery.application.dto.ReservationExportFilter;
+import com.kata.delivery.application.dto.ReservationResponse;
 import com.kata.delivery.domain.DeliveryMode;
 import com.kata.delivery.domain.ReservationStatus;
 import com.kata.delivery.domain.model.ReservationAggregate;
+import com.kata.delivery.domain.model.SlotCapacityClaim;
 import com.kata.delivery.domain.model.TimeSlotAggregate;
 import com.kata.delivery.domain.port.outbound.EventPublisherPort;
+import com.kata.delivery.domain.port.outbound.HoldExpiryPort;
 import com.kata.delivery.domain.port.outbound.ReservationRepositoryPort;
+import com.kata.delivery.domain.port.outbound.ReservationViewRepositoryPort;
 import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
 import com.kata.delivery.exception.ResourceNotFoundException;
+import com.kata.delivery.exception.TimeSlotNotAvailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,6 +65,24 @@ class ReservationApplicationServiceTest {
     @Mock
     private EventPublisherPort eventPublisher;
 
+    @Mock
+    private HoldExpiryPort holdExpiry;
+
+    @Spy
+    private ReservationProperties properties = new ReservationProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private TimeSlotResolver timeSlotResolver;
+
+    @Mock
+    private ReservationViewRepositoryPort reservationView;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private ReservationApplicationService reservationService;
 
@@ -67,8 +110,8 @@ class ReservationApplicationServiceTest {
     @Test
     void createReservation_Success() {
         // Given
-        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
-        when(timeSlotRepository.save(any())).thenReturn(Mono.just(timeSlot));
+        timeSlot.setCurrentReservations(1);
+        when(timeSlotRepository.claimCapacity(1L)).thenReturn(Mono.just(timeSlot));
         when(reservationRepository.save(any())).thenAnswer(invocation -> {
             ReservationAggregate res = invocation.getArgument(0);
             res.setId(1L);
@@ -81,17 +124,21 @@ class ReservationApplicationServiceTest {
                 .expectNextMatches(response ->
                         response.getId() != null &&
                         response.getCustomerEmail().equals("ahmed.soumer@example.com") &&
-                        response.getStatus() == ReservationStatus.CONFIRMED
+                        response.getStatus() == ReservationStatus.CONFIRMED &&
+                        response.getTimeSlot().getCurrentReservations() == 1
                 )
                 .verifyComplete();
 
-        verify(timeSlotRepository).save(any());
+        verify(timeSlotRepository).claimCapacity(1L);
+        verify(timeSlotRepository, never()).save(any());
+        verify(timeSlotRepository, never()).findById(any());
         verify(reservationRepository).save(any());
     }
 
     @Test
     void createReservation_TimeSlotNotFound() {
         // Given
+        when(timeSlotRepository.claimCapacity(1L)).thenReturn(Mono.empty());
         when(timeSlotRepository.findById(1L)).thenReturn(Mono.empty());
 
         // When & Then
@@ -100,6 +147,233 @@ class ReservationApplicationServiceTest {
                 .verify();
     }
 
+    @Test
+    void createReservation_TimeSlotFull() {
+        // Given
+        timeSlot.setCurrentReservations(5);
+        when(timeSlotRepository.claimCapacity(1L)).thenReturn(Mono.empty());
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+
+        // When & Then
+        StepVerifier.create(reservationService.createReservation(command))
+                .expectError(TimeSlotNotAvailableException.class)
+                .verify();
+
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void createReservations_ClaimsOncePerSlotAndRejectsOverflow() {
+        // Given: three commands for slot 1 which has room for two, one invalid command
+        TimeSlotAggregate claimed = new TimeSlotAggregate(
+                DeliveryMode.DELIVERY, LocalDate.now().plusDays(1), LocalTime.of(10, 0), LocalTime.of(12, 0), 5);
+        claimed.setId(1L);
+        claimed.setCurrentReservations(5);
+        CreateReservationCommand invalid = CreateReservationCommand.builder()
+                .customerName("Nobody")
+                .customerEmail("not-an-email")
+                .timeSlotId(1L)
+                .build();
+
+        when(timeSlotRepository.claimCapacity(1L, 3)).thenReturn(Mono.just(new SlotCapacityClaim(claimed, 2)));
+        when(reservationRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<ReservationAggregate> reservations = invocation.getArgument(0);
+            for (int i = 0; i < reservations.size(); i++) {
+                reservations.get(i).setId(10L + i);
+            }
+            return Flux.fromIterable(reservations);
+        });
+        when(eventPublisher.publish(any())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(reservationService.createReservations(Flux.just(command, invalid, command, command)))
+                .expectNextMatches(result -> result.getIndex() == 0 && result.getConfirmed()
+                        && result.getReservation().getId() == 10L)
+                .expectNextMatches(result -> result.getIndex() == 1 && !result.getConfirmed())
+                .expectNextMatches(result -> result.getIndex() == 2 && result.getConfirmed()
+                        && result.getReservation().getId() == 11L)
+                .expectNextMatches(result -> result.getIndex() == 3 && !result.getConfirmed())
+                .verifyComplete();
+
+        verify(timeSlotRepository).claimCapacity(1L, 3);
+        // Two ReservationCreated events and a single capacity change for the slot
+        verify(eventPublisher, times(3)).publish(any());
+    }
+
+    @Test
+    void createReservations_RejectsOverLongItemsBeforeAnyClaim() {
+        // Given: a name longer than its column, which would break the multi-row insert
+        CreateReservationCommand overLong = CreateReservationCommand.builder()
+                .customerName("N".repeat(256))
+                .customerEmail("ahmed.soumer@example.com")
+                .timeSlotId(1L)
+                .build();
+
+        // When & Then
+        StepVerifier.create(reservationService.createReservations(Flux.just(overLong)))
+                .expectNextMatches(result -> result.getIndex() == 0 && !result.getConfirmed()
+                        && result.getRejectionReason().startsWith("customerName"))
+                .verifyComplete();
+
+        verify(timeSlotRepository, never()).claimCapacity(any(), anyInt());
+        verify(reservationRepository, never()).insertAll(any());
+    }
+
+    @Test
+    void placeHold_ClaimsCapacityAndSchedulesExpiry() {
+        // Given
+        timeSlot.setCurrentReservations(1);
+        when(timeSlotRepository.claimCapacity(1L)).thenReturn(Mono.just(timeSlot));
+        when(reservationRepository.save(any())).thenAnswer(invocation -> {
+            ReservationAggregate res = invocation.getArgument(0);
+            res.setId(1L);
+            return Mono.just(res);
+        });
+        when(eventPublisher.publish(any())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(reservationService.placeHold(command))
+                .expectNextMatches(response ->
+                        response.getStatus() == ReservationStatus.HOLD &&
+                        response.getHoldExpiresAt() != null
+                )
+                .verifyComplete();
+
+        verify(holdExpiry).schedule(eq(1L), any());
+        // The hold and the capacity change, the reservation is created when confirmed
+        verify(eventPublisher, times(2)).publish(any());
+    }
+
+    @Test
+    void placeHold_SchedulesExpiryOnlyOnceCommitted() {
+        // Given
+        TransactionalOperator transaction = TransactionalOperator.create(new SynchronizingTransactionManager());
+
+        when(timeSlotRepository.claimCapacity(1L)).thenReturn(Mono.just(timeSlot));
+        when(reservationRepository.save(any())).thenAnswer(invocation -> {
+            ReservationAggregate res = invocation.getArgument(0);
+            res.setId(1L);
+            return Mono.just(res);
+        });
+        when(eventPublisher.publish(any()))
+                .thenReturn(Mono.error(new IllegalStateException("outbox unavailable")))
+                .thenReturn(Mono.empty());
+
+        // When: the first attempt rolls back after the save
+        StepVerifier.create(reservationService.placeHold(command).as(transaction::transactional))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // Then
+        verify(holdExpiry, never()).schedule(any(), any());
+
+        // And: once committed the expiry is armed
+        StepVerifier.create(reservationService.placeHold(command).as(transaction::transactional))
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(holdExpiry).schedule(eq(1L), any());
+    }
+
+    @Test
+    void confirmReservation_ConfirmsUnexpiredHold() {
+        // Given
+        ReservationAggregate hold = ReservationAggregate.placeHold(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                timeSlot,
+                LocalDateTime.now().plusMinutes(5)
+        );
+        hold.setId(1L);
+
+        when(reservationRepository.findById(1L)).thenReturn(Mono.just(hold));
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+        when(reservationRepository.save(any())).thenReturn(Mono.just(hold));
+        when(eventPublisher.publish(any())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(reservationService.confirmReservation(1L))
+                .expectNextMatches(response -> response.getStatus() == ReservationStatus.CONFIRMED)
+                .verifyComplete();
+
+        verify(holdExpiry).cancel(1L);
+    }
+
+    @Test
+    void confirmReservation_StopsTheExpiryOnlyOnceCommitted() {
+        // Given: the same hold read again by the second attempt
+        TransactionalOperator transaction = TransactionalOperator.create(new SynchronizingTransactionManager());
+
+        when(reservationRepository.findById(1L)).thenAnswer(invocation -> {
+            ReservationAggregate hold = ReservationAggregate.placeHold(
+                    new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                    timeSlot,
+                    LocalDateTime.now().plusMinutes(5)
+            );
+            hold.setId(1L);
+            return Mono.just(hold);
+        });
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+        when(reservationRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(eventPublisher.publish(any()))
+                .thenReturn(Mono.error(new IllegalStateException("outbox unavailable")))
+                .thenReturn(Mono.empty());
+
+        // When: the first attempt rolls back after the save
+        StepVerifier.create(reservationService.confirmReservation(1L).as(transaction::transactional))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // Then
+        verify(holdExpiry, never()).cancel(any());
+
+        // And: once committed the expiry is stopped
+        StepVerifier.create(reservationService.confirmReservation(1L).as(transaction::transactional))
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(holdExpiry).cancel(1L);
+    }
+
+    @Test
+    void confirmReservation_ExpiredHold_IsRejected() {
+        // Given
+        ReservationAggregate hold = ReservationAggregate.placeHold(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                timeSlot,
+                LocalDateTime.now().minusSeconds(1)
+        );
+        hold.setId(1L);
+
+        when(reservationRepository.findById(1L)).thenReturn(Mono.just(hold));
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+
+        // When & Then
+        StepVerifier.create(reservationService.confirmReservation(1L))
+                .expectError(TimeSlotNotAvailableException.class)
+                .verify();
+    }
+
+    @Test
+    void expireHold_ReleasesCapacity() {
+        // Given
+        ReservationAggregate hold = ReservationAggregate.placeHold(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                timeSlot,
+                LocalDateTime.now().minusSeconds(1)
+        );
+        hold.setId(1L);
+
+        when(reservationRepository.findById(1L)).thenReturn(Mono.just(hold));
+        when(timeSlotRepository.releaseCapacity(1L)).thenReturn(Mono.just(timeSlot));
+        when(reservationRepository.save(any())).thenReturn(Mono.just(hold));
+        when(eventPublisher.publish(any())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(reservationService.expireHold(1L))
+                .verifyComplete();
+
+        assertEquals(ReservationStatus.CANCELLED, hold.getStatus());
+        verify(timeSlotRepository).releaseCapacity(1L);
+    }
+
     @Test
     void cancelReservation_Success() {
         // Given
@@ -108,11 +382,9 @@ class ReservationApplicationServiceTest {
                 timeSlot
         );
         reservation.setId(1L);
-        timeSlot.reserveSlot();
 
         when(reservationRepository.findById(1L)).thenReturn(Mono.just(reservation));
-        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
-        when(timeSlotRepository.save(any())).thenReturn(Mono.just(timeSlot));
+        when(timeSlotRepository.releaseCapacity(1L)).thenReturn(Mono.just(timeSlot));
         when(reservationRepository.save(any())).thenReturn(Mono.just(reservation));
         when(eventPublisher.publish(any())).thenReturn(Mono.empty());
 
@@ -122,23 +394,198 @@ class ReservationApplicationServiceTest {
                         response.getStatus() == ReservationStatus.CANCELLED
                 )
                 .verifyComplete();
+
+        verify(timeSlotRepository).releaseCapacity(1L);
     }
 
     @Test
-    void getAllReservations_ReturnsFlux() {
+    void cancelReservation_AlreadyCancelled_DoesNotReleaseTwice() {
         // Given
-        ReservationAggregate res1 = ReservationAggregate.createReservation(
-                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed@example.com"),
+        ReservationAggregate reservation = ReservationAggregate.createReservation(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                timeSlot
+        );
+        reservation.setId(1L);
+        reservation.cancel("Customer requested");
+
+        when(reservationRepository.findById(1L)).thenReturn(Mono.just(reservation));
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+
+        // When & Then
+        StepVerifier.create(reservationService.cancelReservation(1L, "Customer requested"))
+                .expectNextMatches(response ->
+                        response.getStatus() == ReservationStatus.CANCELLED
+                )
+                .verifyComplete();
+
+        verify(timeSlotRepository, never()).releaseCapacity(any());
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelReservation_ConcurrentlyCancelled_RetriesWithoutReleasingTwice() {
+        // Given: the first attempt loses the race against another cancellation
+        ReservationAggregate stale = ReservationAggregate.createReservation(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
+                timeSlot
+        );
+        stale.setId(1L);
+        ReservationAggregate current = ReservationAggregate.createReservation(
+                new com.kata.delivery.domain.model.CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"),
                 timeSlot
         );
-        res1.setId(1L);
+        current.setId(1L);
+        current.cancel("Hold expired");
+
+        when(reservationRepository.findById(1L))
+                .thenReturn(Mono.just(stale))
+                .thenReturn(Mono.just(current));
+        when(reservationRepository.save(any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Version does not match")));
+        when(timeSlotRepository.findById(1L)).thenReturn(Mono.just(timeSlot));
+
+        // When & Then
+        StepVerifier.create(reservationService.cancelReservation(1L, "Customer requested"))
+                .expectNextMatches(response -> response.getStatus() == ReservationStatus.CANCELLED)
+                .verifyComplete();
+
+        verify(timeSlotRepository, never()).releaseCapacity(any());
+        assertEquals(1.0, meterRegistry.counter("delivery.reservations.conflicts", "timeSlotId", "1").count());
+    }
+
+    @Test
+    void getAllReservations_ReturnsFlux() {
+        // Given
+        ReservationResponse res1 = ReservationResponse.builder()
+                .id(1L)
+                .customerEmail("ahmed@example.com")
+                .timeSlotId(1L)
+                .build();
 
-        when(reservationRepository.findAll()).thenReturn(Flux.just(res1));
-        when(timeSlotRepository.findById(any())).thenReturn(Mono.just(timeSlot));
+        when(reservationView.findAll()).thenReturn(Flux.just(res1));
 
         // When & Then
         StepVerifier.create(reservationService.getAllReservations())
                 .expectNextCount(1)
                 .verifyComplete();
+
+        // Served from the read model, no lookup per reservation
+        verify(reservationRepository, never()).findAllResponses();
+        verify(timeSlotRepository, never()).findById(any());
+    }
+
+    @Test
+    void exportReservations_StreamsFromWriteSideWithFetchSize() {
+        // Given
+        ReservationExportFilter filter = ReservationExportFilter.builder()
+                .from(LocalDate.of(2026, 10, 1))
+                .to(LocalDate.of(2026, 10, 31))
+                .status(ReservationStatus.CONFIRMED)
+                .build();
+        ReservationResponse response = ReservationResponse.builder().id(1L).build();
+        when(reservationRepository.streamResponses(filter, 500)).thenReturn(Flux.just(response));
+
+        // When & Then
+        StepVerifier.create(reservationService.exportReservations(filter))
+                .expectNext(response)
+                .verifyComplete();
+
+        verify(reservationView, never()).findAll();
+    }
+
+    @Test
+    void exportReservations_RangeEndingBeforeItStarts_Rejected() {
+        // Given
+        ReservationExportFilter filter = ReservationExportFilter.builder()
+                .from(LocalDate.of(2026, 10, 31))
+                .to(LocalDate.of(2026, 10, 1))
+                .build();
+
+        // When & Then
+        StepVerifier.create(reservationService.exportReservations(filter))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(reservationRepository, never()).streamResponses(any(), anyInt());
+    }
+
+    @Test
+    void getReservationById_NotYetProjected_ReadsWriteSide() {
+        // Given
+        ReservationResponse response = ReservationResponse.builder()
+                .id(1L)
+                .customerEmail("ahmed@example.com")
+                .timeSlotId(1L)
+                .status(ReservationStatus.CONFIRMED)
+                .build();
+
+        when(reservationView.findById(1L)).thenReturn(Mono.empty());
+        when(reservationRepository.findResponseById(1L)).thenReturn(Mono.just(response));
+
+        // When & Then
+        StepVerifier.create(reservationService.getReservationById(1L))
+                .expectNext(response)
+                .verifyComplete();
+    }
+
+    @Test
+    void getReservationsPage_SeeksAfterCursorAndLinksNextPage() {
+        // Given
+        when(reservationRepository.findResponsesAfter(5L, 3)).thenReturn(Flux.just(
+                ReservationResponse.builder().id(6L).build(),
+                ReservationResponse.builder().id(8L).build(),
+                ReservationResponse.builder().id(9L).build()));
+        when(reservationRepository.findResponsesAfter(8L, 3)).thenReturn(Flux.just(
+                ReservationResponse.builder().id(9L).build()));
+
+        // When & Then
+        StepVerifier.create(reservationService.getReservationsPage(PageCursor.encode(5L), 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getItems().size());
+                    assertEquals(8L, PageCursor.decode(page.getNextCursor()));
+                })
+                .verifyComplete();
+        StepVerifier.create(reservationService.getReservationsPage(PageCursor.encode(8L), 2))
+                .assertNext(page -> {
+                    assertEquals(1, page.getItems().size());
+                    assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getReservationsPage_RejectsInvalidCursor() {
+        StepVerifier.create(reservationService.getReservationsPage("not-a-cursor", 10))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    /**
+     * Reactive transaction manager without a resource, it only drives the synchronization callbacks
+     */
+    private static final class SynchronizingTransactionManager extends AbstractReactiveTransactionManager {
+
+        @Override
+        protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+            return new Object();
+        }
+
+        @Override
+        protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+                                     TransactionDefinition definition) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+                                      GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
+
+        @Override
+        protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+                                        GenericReactiveTransaction status) {
+            return Mono.empty();
+        }
     }
 }
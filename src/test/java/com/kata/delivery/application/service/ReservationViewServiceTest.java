@@ -0,0 +1,121 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.dto.ReservationResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.ReservationStatus;
+import com.kata.delivery.domain.event.ReservationCancelledEvent;
+import com.kata.delivery.domain.event.ReservationHeldEvent;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import com.kata.delivery.domain.port.outbound.ReservationViewRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reactive tests for ReservationViewService
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservationViewServiceTest {
+
+    @Mock
+    private ReservationViewRepositoryPort reservationView;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReservationViewService viewService;
+
+    @BeforeEach
+    void setUp() {
+        viewService = new ReservationViewService(reservationView, meterRegistry);
+    }
+
+    @Test
+    void project_HeldEvent_UpsertsHoldWithItsTimeSlot() {
+        // Given
+        LocalDateTime expiresAt = LocalDateTime.of(2026, 10, 18, 9, 15);
+        ReservationHeldEvent event = ReservationHeldEvent.builder()
+                .reservationId(1L)
+                .customerName("Ahmed")
+                .customerEmail("ahmed@example.com")
+                .timeSlotId(2L)
+                .deliveryMode(DeliveryMode.DRIVE)
+                .deliveryDate(LocalDate.of(2026, 10, 18))
+                .deliveryStartTime(LocalTime.of(10, 0))
+                .deliveryEndTime(LocalTime.of(11, 0))
+                .timeSlotCapacity(10)
+                .timeSlotReservations(3)
+                .holdExpiresAt(expiresAt)
+                .build();
+        when(reservationView.upsert(any(), any())).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(viewService.project(event))
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<ReservationResponse> view = ArgumentCaptor.forClass(ReservationResponse.class);
+        verify(reservationView).upsert(view.capture(), eq(event.getOccurredOn()));
+        assertEquals(ReservationStatus.HOLD, view.getValue().getStatus());
+        assertEquals(expiresAt, view.getValue().getHoldExpiresAt());
+        assertEquals(DeliveryMode.DRIVE, view.getValue().getTimeSlot().getDeliveryMode());
+        assertEquals(3, view.getValue().getTimeSlot().getCurrentReservations());
+        assertEquals(1L, meterRegistry.get("delivery.reservations.view.lag").timer().count());
+    }
+
+    @Test
+    void project_CancelledEvent_OnlyCarriesTheCancellation() {
+        // Given
+        ReservationCancelledEvent event = ReservationCancelledEvent.builder()
+                .reservationId(1L)
+                .customerEmail("ahmed@example.com")
+                .timeSlotId(2L)
+                .build();
+        when(reservationView.upsert(any(), any())).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(viewService.project(event))
+                .verifyComplete();
+
+        // Then: the time slot columns are left to the other events
+        ArgumentCaptor<ReservationResponse> view = ArgumentCaptor.forClass(ReservationResponse.class);
+        verify(reservationView).upsert(view.capture(), eq(event.getOccurredOn()));
+        assertEquals(ReservationStatus.CANCELLED, view.getValue().getStatus());
+        assertEquals(event.getOccurredOn(), view.getValue().getCancelledAt());
+        assertNull(view.getValue().getTimeSlot());
+    }
+
+    @Test
+    void project_CapacityChangedEvent_UpdatesReservationsOfTheSlot() {
+        // Given
+        TimeSlotCapacityChangedEvent event = TimeSlotCapacityChangedEvent.builder()
+                .timeSlotId(2L)
+                .capacity(10)
+                .currentReservations(4)
+                .build();
+        when(reservationView.updateTimeSlot(2L, 10, 4, event.getOccurredOn())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(viewService.project(event))
+                .verifyComplete();
+
+        verify(reservationView).updateTimeSlot(2L, 10, 4, event.getOccurredOn());
+    }
+}
@@ -0,0 +1,161 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.TimeSlotProperties;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for TimeSlotAvailabilityIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class TimeSlotAvailabilityIndexTest {
+
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+    @Mock
+    private TimeSlotRepositoryPort timeSlotRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TimeSlotAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(timeSlotRepository.findByDateGreaterThanEqual(LocalDate.now())).thenReturn(Flux.just(
+                timeSlot(2L, DeliveryMode.DRIVE, TOMORROW, 14, 2, 2),
+                timeSlot(1L, DeliveryMode.DRIVE, TOMORROW, 9, 2, 1),
+                timeSlot(3L, DeliveryMode.DELIVERY, TOMORROW, 9, 5, 0)));
+        index = new TimeSlotAvailabilityIndex(timeSlotRepository, new TimeSlotProperties(), meterRegistry);
+        index.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    @Test
+    void find_AnswersFromLoadedSlotsInStartTimeOrder() {
+        // When & Then
+        assertTrue(index.covers(TOMORROW));
+        assertFalse(index.covers(LocalDate.now().minusDays(1)));
+        assertEquals(List.of(1L), ids(index.findAvailable(DeliveryMode.DRIVE, TOMORROW)));
+        assertEquals(List.of(1L, 2L), ids(index.findByDeliveryMode(DeliveryMode.DRIVE)));
+        assertEquals(3, index.findByDate(TOMORROW).size());
+
+        TimeSlotResponse morning = index.findByDeliveryMode(DeliveryMode.DRIVE).get(0);
+        assertEquals(LocalTime.of(9, 0), morning.getStartTime());
+        assertEquals(LocalTime.of(10, 0), morning.getEndTime());
+        assertEquals(1, morning.getAvailableSlots());
+        assertEquals(3.0, meterRegistry.get("delivery.time-slots.index.slots").gauge().value());
+    }
+
+    @Test
+    void apply_UpdatesAvailabilityOfChangedSlot() {
+        // When: the morning slot fills up and the afternoon one frees a place
+        index.apply(timeSlot(1L, DeliveryMode.DRIVE, TOMORROW, 9, 2, 2));
+        index.apply(timeSlot(2L, DeliveryMode.DRIVE, TOMORROW, 14, 2, 1));
+
+        // Then
+        List<TimeSlotResponse> available = index.findAvailable(DeliveryMode.DRIVE, TOMORROW);
+        assertEquals(List.of(2L), ids(available));
+        assertEquals(1, available.get(0).getCurrentReservations());
+    }
+
+    @Test
+    void apply_InsertsNewSlotInStartTimeOrder() {
+        // When
+        index.apply(timeSlot(4L, DeliveryMode.DRIVE, TOMORROW, 11, 3, 0));
+        index.apply(timeSlot(5L, DeliveryMode.DRIVE, TOMORROW.plusDays(1), 8, 3, 0));
+
+        // Then
+        assertEquals(List.of(1L, 4L, 2L, 5L), ids(index.findByDeliveryMode(DeliveryMode.DRIVE)));
+        assertEquals(List.of(1L, 4L), ids(index.findAvailable(DeliveryMode.DRIVE, TOMORROW)));
+    }
+
+    @Test
+    void findAvailable_SkipsEarlierAndFullSlotsAcrossDays() {
+        // Given
+        index.apply(timeSlot(4L, DeliveryMode.DRIVE, TOMORROW, 11, 3, 0));
+        index.apply(timeSlot(5L, DeliveryMode.DRIVE, TOMORROW.plusDays(1), 8, 3, 0));
+        index.apply(timeSlot(6L, DeliveryMode.DRIVE, TOMORROW.plusDays(2), 8, 3, 0));
+
+        // When & Then: 9:00 has started by 9:30, 14:00 is full
+        assertEquals(List.of(4L, 5L), ids(index.findNextAvailable(DeliveryMode.DRIVE, TOMORROW.atTime(9, 30), 2)));
+        assertEquals(List.of(1L, 4L, 5L, 6L), ids(index.findNextAvailable(DeliveryMode.DRIVE, TOMORROW.atStartOfDay(), 10)));
+        assertEquals(List.of(5L), ids(index.findNextAvailable(DeliveryMode.DRIVE, TOMORROW.atTime(11, 0, 1), 1)));
+        assertEquals(List.of(1L, 4L, 5L), ids(index.findAvailableBetween(DeliveryMode.DRIVE, TOMORROW, TOMORROW.plusDays(1))));
+        assertEquals(List.of(5L, 6L), ids(index.findAvailableBetween(DeliveryMode.DRIVE, TOMORROW.plusDays(1), TOMORROW.plusDays(5))));
+    }
+
+    @Test
+    void versionTag_ChangesOnlyWithTheSlotsItCovers() {
+        // Given
+        String drive = index.versionTag(DeliveryMode.DRIVE, TOMORROW).orElseThrow();
+        String allModes = index.versionTag(null, TOMORROW).orElseThrow();
+
+        // When: a refresh without change, then a change on another mode
+        index.apply(timeSlot(1L, DeliveryMode.DRIVE, TOMORROW, 9, 2, 1));
+        index.apply(timeSlot(3L, DeliveryMode.DELIVERY, TOMORROW, 9, 5, 1));
+
+        // Then
+        assertEquals(drive, index.versionTag(DeliveryMode.DRIVE, TOMORROW).orElseThrow());
+        assertNotEquals(allModes, index.versionTag(null, TOMORROW).orElseThrow());
+        assertTrue(index.versionTag(DeliveryMode.DRIVE, LocalDate.now().minusDays(1)).isEmpty());
+
+        index.apply(timeSlot(1L, DeliveryMode.DRIVE, TOMORROW, 9, 2, 2));
+        assertNotEquals(drive, index.versionTag(DeliveryMode.DRIVE, TOMORROW).orElseThrow());
+    }
+
+    @Test
+    void watch_SlowSubscriberGetsLatestStatePerSlot() {
+        // Given: a subscriber that has not asked for anything yet
+        StepVerifier.create(index.watch(DeliveryMode.DRIVE, TOMORROW), 0)
+                // When: the afternoon slot changes twice and a slot it does not watch changes
+                .then(() -> index.apply(timeSlot(2L, DeliveryMode.DRIVE, TOMORROW, 14, 2, 1)))
+                .then(() -> index.apply(timeSlot(2L, DeliveryMode.DRIVE, TOMORROW, 14, 2, 0)))
+                .then(() -> index.apply(timeSlot(3L, DeliveryMode.DELIVERY, TOMORROW, 9, 5, 1)))
+                .thenRequest(10)
+                // Then: the snapshot with only the last state of the changed slot
+                .expectNextMatches(slot -> slot.getId() == 1L && slot.getCurrentReservations() == 1)
+                .expectNextMatches(slot -> slot.getId() == 2L && slot.getCurrentReservations() == 0)
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> index.apply(timeSlot(1L, DeliveryMode.DRIVE, TOMORROW, 9, 2, 2)))
+                .expectNextMatches(slot -> slot.getId() == 1L && !slot.getIsAvailable())
+                .thenCancel()
+                .verify();
+    }
+
+    private static List<Long> ids(List<TimeSlotResponse> slots) {
+        return slots.stream().map(TimeSlotResponse::getId).toList();
+    }
+
+    private static TimeSlotAggregate timeSlot(Long id, DeliveryMode deliveryMode, LocalDate date,
+                                              int startHour, int capacity, int reserved) {
+        TimeSlotAggregate slot = new TimeSlotAggregate(deliveryMode, date,
+                LocalTime.of(startHour, 0), LocalTime.of(startHour + 1, 0), capacity);
+        slot.setId(id);
+        slot.setCurrentReservations(reserved);
+        return slot;
+    }
+}
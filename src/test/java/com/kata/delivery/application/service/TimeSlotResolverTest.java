@@ -0,0 +1,74 @@
+package com.kata.delivery.application.service;
+
+import com.kata.delivery.application.config.ReservationProperties;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.model.CustomerInfo;
+import com.kata.delivery.domain.model.ReservationAggregate;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.domain.port.outbound.TimeSlotRepositoryPort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reactive tests for TimeSlotResolver
+ */
+@ExtendWith(MockitoExtension.class)
+class TimeSlotResolverTest {
+
+    @Mock
+    private TimeSlotRepositoryPort timeSlotRepository;
+
+    @Spy
+    private ReservationProperties properties = new ReservationProperties();
+
+    @InjectMocks
+    private TimeSlotResolver resolver;
+
+    @Test
+    void resolve_FetchesSlotsOncePerBatchAndKeepsOrder() {
+        // Given: 5 reservations alternating between two slots, batches of 3
+        properties.getTimeSlotResolution().setBatchSize(3);
+        TimeSlotAggregate morning = timeSlot(1L);
+        TimeSlotAggregate evening = timeSlot(2L);
+        List<ReservationAggregate> reservations = IntStream.range(0, 5)
+                .mapToObj(i -> reservation((long) i, i % 2 == 0 ? morning : evening))
+                .toList();
+        when(timeSlotRepository.findAllById(anyCollection())).thenReturn(Flux.just(morning, evening));
+
+        // When & Then
+        StepVerifier.create(resolver.resolve(Flux.fromIterable(reservations),
+                        (reservation, timeSlot) -> reservation.getId() + "@" + timeSlot.getId()))
+                .expectNext("0@1", "1@2", "2@1", "3@2", "4@1")
+                .verifyComplete();
+
+        verify(timeSlotRepository, times(2)).findAllById(anyCollection());
+    }
+
+    private TimeSlotAggregate timeSlot(Long id) {
+        TimeSlotAggregate timeSlot = new TimeSlotAggregate(
+                DeliveryMode.DELIVERY, LocalDate.now().plusDays(1), LocalTime.of(10, 0), LocalTime.of(12, 0), 5);
+        timeSlot.setId(id);
+        return timeSlot;
+    }
+
+    private ReservationAggregate reservation(Long id, TimeSlotAggregate timeSlot) {
+        ReservationAggregate reservation = ReservationAggregate.createForClaimedCapacity(
+                new CustomerInfo("Ahmed Soumer", "ahmed.soumer@example.com"), timeSlot);
+        reservation.setId(id);
+        return reservation;
+    }
+}
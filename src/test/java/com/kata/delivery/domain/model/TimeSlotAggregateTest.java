@@ -138,4 +138,19 @@ class TimeSlotAggregateTest {
         var events2 = timeSlot.pullDomainEvents();
         assertEquals(0, events2.size());
     }
+
+    @Test
+    void capacityClaimed_PublishesEventForAlreadyAppliedClaim() {
+        timeSlot.setCurrentReservations(5);
+        
+        timeSlot.capacityClaimed();
+        
+        var events = timeSlot.pullDomainEvents();
+        
+        assertEquals(1, events.size());
+        TimeSlotCapacityChangedEvent event = (TimeSlotCapacityChangedEvent) events.get(0);
+        assertEquals(4, event.getPreviousReservations());
+        assertEquals(5, event.getCurrentReservations());
+        assertTrue(event.getIsFullyBooked());
+    }
 }
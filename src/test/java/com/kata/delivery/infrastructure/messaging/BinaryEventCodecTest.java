@@ -0,0 +1,87 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.event.ReservationCancelledEvent;
+import com.kata.delivery.domain.event.ReservationCreatedEvent;
+import com.kata.delivery.domain.event.TimeSlotCapacityChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BinaryEventCodec
+ */
+class BinaryEventCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final BinaryEventCodec codec = new BinaryEventCodec(objectMapper);
+
+    @Test
+    void encode_RoundTripsEventsInFewerBytesThanJson() throws IOException {
+        // Given
+        ReservationCreatedEvent created = ReservationCreatedEvent.builder()
+                .occurredOn(LocalDateTime.of(2026, 10, 17, 9, 30, 12, 345_678_000))
+                .reservationId(42L)
+                .customerName("Jane Doe")
+                .customerEmail("jane@example.com")
+                .timeSlotId(7L)
+                .deliveryMode(DeliveryMode.DELIVERY_TODAY)
+                .deliveryDate(LocalDate.of(2026, 10, 18))
+                .deliveryStartTime(LocalTime.of(9, 0))
+                .deliveryEndTime(LocalTime.of(10, 0))
+                .timeSlotCapacity(10)
+                .timeSlotReservations(3)
+                .createdAt(LocalDateTime.of(2026, 10, 17, 9, 30))
+                .build();
+        TimeSlotCapacityChangedEvent changed = TimeSlotCapacityChangedEvent.builder()
+                .timeSlotId(7L)
+                .deliveryMode(DeliveryMode.DRIVE)
+                .date(LocalDate.of(2026, 10, 18))
+                .previousReservations(2)
+                .currentReservations(3)
+                .capacity(3)
+                .isFullyBooked(true)
+                .build();
+
+        // When
+        byte[] payload = codec.encode(created);
+
+        // Then
+        assertEquals(created, codec.decode(payload, ReservationCreatedEvent.class));
+        assertEquals(changed, codec.decode(codec.encode(changed), TimeSlotCapacityChangedEvent.class));
+        assertTrue(payload.length < objectMapper.writeValueAsBytes(created).length / 2);
+        assertThrows(IOException.class, () -> codec.decode(payload, ReservationCancelledEvent.class));
+    }
+
+    @Test
+    void decode_ReadsPayloadsOfOlderAndNewerWritersAndJson() throws IOException {
+        // Given: a cancellation without reason, as a writer predating that field would send it
+        ReservationCancelledEvent cancelled = ReservationCancelledEvent.builder()
+                .reservationId(42L)
+                .customerEmail("jane@example.com")
+                .timeSlotId(7L)
+                .build();
+        byte[] older = codec.encode(cancelled);
+
+        // And: the same event from a newer writer, with a version 2 field appended
+        byte[] newer = Arrays.copyOf(older, older.length + 2);
+        newer[2] = 2;
+        newer[3] |= 1 << 6;
+        newer[older.length] = 3;
+        newer[older.length + 1] = 1;
+
+        // When & Then
+        assertEquals(cancelled, codec.decode(older, ReservationCancelledEvent.class));
+        assertEquals(cancelled, codec.decode(newer, ReservationCancelledEvent.class));
+        assertEquals(cancelled, codec.decode(objectMapper.writeValueAsBytes(cancelled), ReservationCancelledEvent.class));
+        assertNull(codec.decode(older, ReservationCancelledEvent.class).getCancellationReason());
+    }
+}
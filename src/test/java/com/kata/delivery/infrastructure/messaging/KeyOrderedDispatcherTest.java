@@ -0,0 +1,114 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import com.kata.delivery.infrastructure.config.EventConsumerProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KeyOrderedDispatcher
+ */
+class KeyOrderedDispatcherTest {
+
+    private final KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(properties(4));
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void dispatch_KeepsKeyOrderAndRunsKeysInParallelBeforeReturning() {
+        // Given: 5 events for each of 8 time slots, interleaved the way one partition would hold them
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        for (int offset = 0; offset < 40; offset++) {
+            records.add(new ConsumerRecord<>("delivery.events.timeslotcapacitychanged", 0, offset,
+                    String.valueOf(offset % 8), new byte[0]));
+        }
+        Map<String, List<Long>> handled = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+
+        // When
+        dispatcher.dispatch(records, record -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            handled.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>()).add(record.offset());
+            running.decrementAndGet();
+        });
+
+        // Then
+        assertEquals(8, handled.size());
+        handled.forEach((key, offsets) -> assertEquals(
+                IntStream.range(0, 5).mapToObj(i -> Long.parseLong(key) + 8L * i).toList(), offsets));
+        assertTrue(mostRunning.get() > 1);
+        assertTrue(mostRunning.get() <= 4);
+    }
+
+    @Test
+    void dispatch_FailsWithTheLowestFailingIndexOnceEveryLaneStopped() {
+        // Given: 5 events for each of 4 time slots, the ones at index 14 and 9 fail
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+        for (int offset = 0; offset < 20; offset++) {
+            records.add(new ConsumerRecord<>("delivery.events.reservationcreated", 0, offset,
+                    String.valueOf(offset % 4), new byte[0]));
+        }
+        Set<Long> handled = ConcurrentHashMap.newKeySet();
+
+        // When
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class,
+                () -> dispatcher.dispatch(records, record -> {
+                    if (record.offset() == 9 || record.offset() == 14) {
+                        throw new IllegalStateException("projection failed");
+                    }
+                    handled.add(record.offset());
+                }));
+
+        // Then: everything before the lowest failure ran, its lane stopped there
+        assertEquals(9, failure.getIndex());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(LongStream.range(0, 9).allMatch(handled::contains));
+        assertFalse(handled.contains(13L));
+        assertTrue(handled.contains(19L));
+
+        // And: the single worker path reports the same index
+        KeyOrderedDispatcher sequential = new KeyOrderedDispatcher(properties(1));
+        try {
+            assertEquals(9, assertThrows(BatchListenerFailedException.class, () -> sequential.dispatch(records,
+                    record -> {
+                        if (record.offset() == 9) {
+                            throw new IllegalStateException("projection failed");
+                        }
+                    })).getIndex());
+        } finally {
+            sequential.stop();
+        }
+    }
+
+    private static EventConsumerProperties properties(int workers) {
+        EventConsumerProperties properties = new EventConsumerProperties();
+        properties.setWorkers(workers);
+        return properties;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kata.delivery.infrastructure.messaging;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TimeSlotPartitioner
+ */
+class TimeSlotPartitionerTest {
+
+    private static final String TOPIC = "delivery.events.reservationcreated";
+    private static final int PARTITIONS = 3;
+
+    private final TimeSlotPartitioner partitioner = new TimeSlotPartitioner();
+    private final Cluster cluster = cluster();
+
+    @Test
+    void partition_MapsTimeSlotIdsToIdModuloPartitions() {
+        // When & Then
+        for (long timeSlotId : new long[] {0, 1, 2, 3, 7, 42, 999_999_999_999_999_999L}) {
+            assertEquals(timeSlotId % PARTITIONS, partition(String.valueOf(timeSlotId)));
+        }
+        assertEquals(2, TimeSlotPartitioner.partitionOf(-1, PARTITIONS));
+    }
+
+    @Test
+    void partition_HashesOtherKeysWithMurmur2() {
+        // Given: event ids, signed or oversized numbers and an empty key are not time slot ids
+        List<String> keys = List.of(UUID.randomUUID().toString(), "slot-7", "-7", "1234567890123456789", "");
+
+        // When & Then
+        for (String key : keys) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            assertEquals(Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS, partition(key), key);
+        }
+    }
+
+    private int partition(String key) {
+        return partitioner.partition(TOPIC, key, key.getBytes(StandardCharsets.UTF_8), null, null, cluster);
+    }
+
+    private static Cluster cluster() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = IntStream.range(0, PARTITIONS)
+                .mapToObj(partition -> new PartitionInfo(TOPIC, partition, node, new Node[] {node}, new Node[] {node}))
+                .toList();
+        return new Cluster("delivery", List.of(node), partitions, Set.of(), Set.of());
+    }
+}
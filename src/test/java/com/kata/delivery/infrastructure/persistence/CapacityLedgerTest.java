@@ -0,0 +1,153 @@
+package com.kata.delivery.infrastructure.persistence;
+
+import com.kata.delivery.domain.DeliveryMode;
+import com.kata.delivery.domain.model.TimeSlotAggregate;
+import com.kata.delivery.infrastructure.config.CapacityProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reactive tests for CapacityLedger
+ */
+@ExtendWith(MockitoExtension.class)
+class CapacityLedgerTest {
+
+    @Mock
+    private CapacityStore store;
+
+    @Mock
+    private R2dbcTimeSlotRepository repository;
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private final TransactionalOperator transaction = TransactionalOperator.create(new NoOpTransactionManager());
+
+    private CapacityLedger ledger;
+    private TimeSlotRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        when(store.loadAll()).thenReturn(Flux.just(new CapacityStore.SlotCount(timeSlot(), 0)));
+        ledger = new CapacityLedger(store, new CapacityProperties());
+        ledger.recover().block();
+        adapter = new TimeSlotRepositoryAdapter(repository, databaseClient, Optional.of(ledger), applicationEventPublisher);
+    }
+
+    @Test
+    void claim_NeverHandsOutMoreThanTheCapacityUnderConcurrentClaims() {
+        // When: 50 concurrent claims on a slot of 10
+        Long claimed = Flux.range(0, 50)
+                .flatMap(i -> ledger.claim(1L).subscribeOn(Schedulers.parallel()))
+                .count()
+                .block();
+
+        // Then
+        assertEquals(10L, claimed);
+        assertEquals(10, reserved());
+    }
+
+    @Test
+    void release_GivesBackOneUnitAndNothingWhenNoneIsReserved() {
+        // Given
+        ledger.claim(1L, 2).block();
+
+        // When & Then
+        StepVerifier.create(ledger.release(1L))
+                .assertNext(slot -> assertEquals(1, slot.getCurrentReservations()))
+                .verifyComplete();
+        StepVerifier.create(ledger.release(1L, 5))
+                .assertNext(slot -> assertEquals(0, slot.getCurrentReservations()))
+                .verifyComplete();
+        StepVerifier.create(ledger.release(1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void claimCapacity_HandsTheUnitBackWhenTheSaveFails() {
+        // When: the reservation save after the claim fails and the transaction rolls back
+        StepVerifier.create(adapter.claimCapacity(1L)
+                        .then(Mono.error(new IllegalStateException("save failed")))
+                        .as(transaction::transactional))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // Then
+        assertEquals(0, reserved());
+
+        // And: a committed claim keeps its unit
+        adapter.claimCapacity(1L, 3).as(transaction::transactional).block();
+        assertEquals(3, reserved());
+    }
+
+    @Test
+    void releaseCapacity_FreesTheUnitOnlyOnceTheTransactionCommits() {
+        // Given
+        ledger.claim(1L).block();
+
+        // When: the cancellation fails after the release
+        StepVerifier.create(adapter.releaseCapacity(1L)
+                        .then(Mono.error(new IllegalStateException("save failed")))
+                        .as(transaction::transactional))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        // Then
+        assertEquals(1, reserved());
+
+        // And: a committed cancellation frees it
+        StepVerifier.create(adapter.releaseCapacity(1L).as(transaction::transactional))
+                .assertNext(slot -> assertEquals(0, slot.getCurrentReservations()))
+                .verifyComplete();
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void findAll_OverlaysTheLiveCountOnTheLaggingTable() {
+        // Given: two claims not yet written back
+        ledger.claim(1L, 2).block();
+        when(repository.findAll()).thenReturn(Flux.just(timeSlot()));
+        when(repository.findByDeliveryModeAndDate(DeliveryMode.DELIVERY, LocalDate.now().plusDays(1)))
+                .thenReturn(Flux.just(timeSlot()));
+
+        // When & Then
+        StepVerifier.create(adapter.findAll())
+                .assertNext(slot -> assertEquals(2, slot.getCurrentReservations()))
+                .verifyComplete();
+        StepVerifier.create(adapter.findByDeliveryModeAndDate(DeliveryMode.DELIVERY, LocalDate.now().plusDays(1)))
+                .assertNext(slot -> assertEquals(2, slot.getCurrentReservations()))
+                .verifyComplete();
+    }
+
+    private int reserved() {
+        return ledger.find(1L).block().getCurrentReservations();
+    }
+
+    private static TimeSlotAggregate timeSlot() {
+        TimeSlotAggregate slot = new TimeSlotAggregate(DeliveryMode.DELIVERY,
+                LocalDate.now().plusDays(1), LocalTime.of(9, 0), LocalTime.of(10, 0), 10);
+        slot.setId(1L);
+        slot.setVersion(0L);
+        return slot;
+    }
+}
@@ -0,0 +1,98 @@
+package com.kata.delivery.infrastructure.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kata.delivery.application.dto.TimeSlotResponse;
+import com.kata.delivery.infrastructure.config.WebCodecConfig;
+import com.kata.delivery.infrastructure.messaging.KafkaEventPublisher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the JSON, CBOR and Smile representations negotiated by the reactive controllers
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.kafka.bootstrap-servers=localhost:1",
+        "spring.kafka.listener.auto-startup=false",
+        "spring.kafka.admin.auto-create=false"
+})
+@AutoConfigureWebTestClient
+class ContentNegotiationTest {
+
+    private static final MediaType APPLICATION_SMILE = MediaType.valueOf(WebCodecConfig.APPLICATION_SMILE_VALUE);
+
+    @MockBean
+    private KafkaEventPublisher kafkaEventPublisher;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void listing_RoundTripsAsCborAndSmile() throws IOException {
+        // Given
+        List<TimeSlotResponse> json = webTestClient.get().uri("/api/v2/time-slots")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TimeSlotResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // When
+        byte[] cbor = listing(MediaType.APPLICATION_CBOR);
+        byte[] smile = listing(APPLICATION_SMILE);
+
+        // Then: each is one array document holding the same slots
+        assertFalse(json.isEmpty());
+        assertEquals(json, List.of(objectMapper.copyWith(new CBORFactory()).readValue(cbor, TimeSlotResponse[].class)));
+        assertEquals(json, List.of(objectMapper.copyWith(new SmileFactory()).readValue(smile, TimeSlotResponse[].class)));
+    }
+
+    @Test
+    void anyMediaTypeAndErrors_StayJson() {
+        // When & Then
+        webTestClient.get().uri("/api/v2/time-slots")
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+        webTestClient.get().uri("/api/v2/time-slots/999999")
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_FOUND)
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$.status").isEqualTo(404);
+        webTestClient.get().uri("/api/v2/time-slots?limit=0")
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$.status").isEqualTo(400);
+    }
+
+    private byte[] listing(MediaType mediaType) {
+        return webTestClient.get().uri("/api/v2/time-slots")
+                .accept(mediaType)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(mediaType)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+    }
+}